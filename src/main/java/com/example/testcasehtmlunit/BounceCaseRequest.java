@@ -0,0 +1,549 @@
+package com.example.testcasehtmlunit;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNullElse;
+import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
+
+/**
+ * A case of {@code /bounce/batch} as a request to {@code /bounce}, taking the place of the container for the case.
+ * <p>
+ * Like the container, it binds the query parameters followed by the form parameters of a POST body, the servlet
+ * specification leaves the bodies of the other methods to the {@code FormContentFilter}. The fields of a multipart body,
+ * which the case holds url encoded, are bound for every method and offered as parts along with the file of the case.
+ * The request has only the headers of the case, and attributes and a session of its own, so no state leaks between
+ * the cases or into the batch.
+ */
+final class BounceCaseRequest extends HttpServletRequestWrapper {
+
+    private static final String BATCH_SUFFIX = "/batch";
+
+    private final String method;
+    private final String queryString;
+    private final String contentType;
+    private final byte[] body;
+    private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>(Locale.ROOT);
+    private final Map<String, String[]> parameters;
+    private final List<Part> parts = new ArrayList<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private String characterEncoding;
+    private CaseSession session;
+
+    BounceCaseRequest(HttpServletRequest batch, InspectController.BounceCase bounceCase) {
+        super(batch);
+        method = bounceCase.method();
+        String query = requireNonNullElse(bounceCase.query(), "");
+        // like the container, a query without a question mark is null and a lone question mark is empty
+        queryString = query.isEmpty() ? null : query.startsWith("?") ? query.substring(1) : query;
+        contentType = bounceCase.contentType();
+        body = requireNonNullElse(bounceCase.body(), "").getBytes(StandardCharsets.UTF_8);
+        if (bounceCase.accept() != null) {
+            headers.put(HttpHeaders.ACCEPT, List.of(bounceCase.accept()));
+        }
+        if (contentType != null) {
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(contentType));
+            headers.put(HttpHeaders.CONTENT_LENGTH, List.of(String.valueOf(body.length)));
+        }
+
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        parse(queryString, values);
+        String type = requireNonNullElse(contentType, "");
+        if (type.startsWith(MULTIPART_FORM_DATA_VALUE)) {
+            Map<String, List<String>> fields = new LinkedHashMap<>();
+            parse(new String(body, StandardCharsets.UTF_8), fields);
+            fields.forEach((name, fieldValues) -> {
+                values.computeIfAbsent(name, it -> new ArrayList<>()).addAll(fieldValues);
+                fieldValues.forEach(value -> parts.add(new CasePart(name, null, value.getBytes(StandardCharsets.UTF_8))));
+            });
+            if (bounceCase.file() != null) {
+                parts.add(new CasePart("file", bounceCase.file(), new byte[0]));
+            }
+        } else if (type.startsWith(APPLICATION_FORM_URLENCODED_VALUE) && method.equals("POST")) {
+            parse(new String(body, StandardCharsets.UTF_8), values);
+        }
+        Map<String, String[]> parameterMap = new LinkedHashMap<>();
+        values.forEach((name, parameterValues) -> parameterMap.put(name, parameterValues.toArray(String[]::new)));
+        parameters = Collections.unmodifiableMap(parameterMap);
+    }
+
+    /**
+     * Like the container: a name without {@code =} has an empty value, pairs without a name or with a malformed escape are skipped.
+     */
+    private static void parse(String encoded, Map<String, List<String>> values) {
+        if (encoded == null) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+                values.computeIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), it -> new ArrayList<>()).add(value);
+            } catch (IllegalArgumentException e) {
+                // the container ignores the pair
+            }
+        }
+    }
+
+    // the case is a sibling of the batch, e.g. /bounce for /bounce/batch
+    private static String bouncePath(String batchPath) {
+        return batchPath != null && batchPath.endsWith(BATCH_SUFFIX) ? batchPath.substring(0, batchPath.length() - BATCH_SUFFIX.length()) : batchPath;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return bouncePath(super.getRequestURI());
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer(bouncePath(super.getRequestURL().toString()));
+    }
+
+    @Override
+    public String getServletPath() {
+        return bouncePath(super.getServletPath());
+    }
+
+    @Override
+    public String getPathInfo() {
+        return bouncePath(super.getPathInfo());
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(headers.getOrDefault(name, List.of()));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        if (getHeader(name) != null) {
+            throw new IllegalArgumentException("A case has no date header: " + name);
+        }
+        return -1;
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return null;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.getDefault();
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(List.of(Locale.getDefault()));
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.length;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(String characterEncoding) {
+        this.characterEncoding = characterEncoding;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new IllegalStateException("The body of a case is read blocking");
+            }
+
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        Charset charset = characterEncoding == null ? StandardCharsets.ISO_8859_1 : Charset.forName(characterEncoding);
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    @Override
+    public Part getPart(String name) {
+        return parts.stream().filter(it -> it.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (session == null && create) {
+            session = new CaseSession(getServletContext());
+        }
+        return session;
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("A case has no session id");
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("A case is handled synchronously");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("A case is handled synchronously");
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("A case is handled synchronously");
+    }
+
+    @Override
+    public Map<String, String> getTrailerFields() {
+        return Map.of();
+    }
+
+    @Override
+    public boolean isTrailerFieldsReady() {
+        return true;
+    }
+
+    /**
+     * A field or the file of a multipart case.
+     */
+    private record CasePart(String name, String submittedFileName, byte[] content) implements Part {
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public String getContentType() {
+            return submittedFileName == null ? null : "application/octet-stream";
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getSubmittedFileName() {
+            return submittedFileName;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public void write(String fileName) {
+            throw new UnsupportedOperationException("The parts of a case are kept in memory");
+        }
+
+        @Override
+        public void delete() {
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (name.equalsIgnoreCase(HttpHeaders.CONTENT_DISPOSITION)) {
+                return "form-data; name=\"" + this.name + "\"" + (submittedFileName == null ? "" : "; filename=\"" + submittedFileName + "\"");
+            }
+            if (name.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE)) {
+                return getContentType();
+            }
+            return null;
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            String value = getHeader(name);
+            return value == null ? List.of() : List.of(value);
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return submittedFileName == null ? List.of(HttpHeaders.CONTENT_DISPOSITION) : List.of(HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.CONTENT_TYPE);
+        }
+    }
+
+    /**
+     * The session of a case, it starts empty like the session after loading the form.
+     */
+    private static final class CaseSession implements HttpSession {
+
+        private final ServletContext servletContext;
+        private final long creationTime = System.currentTimeMillis();
+        private final String id = UUID.randomUUID().toString();
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private int maxInactiveInterval;
+        private boolean invalid;
+
+        CaseSession(ServletContext servletContext) {
+            this.servletContext = servletContext;
+        }
+
+        private void checkValid() {
+            if (invalid) {
+                throw new IllegalStateException("The session is invalidated");
+            }
+        }
+
+        @Override
+        public long getCreationTime() {
+            checkValid();
+            return creationTime;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public long getLastAccessedTime() {
+            checkValid();
+            return creationTime;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public void setMaxInactiveInterval(int interval) {
+            maxInactiveInterval = interval;
+        }
+
+        @Override
+        public int getMaxInactiveInterval() {
+            return maxInactiveInterval;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            checkValid();
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            checkValid();
+            return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            checkValid();
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            checkValid();
+            attributes.remove(name);
+        }
+
+        @Override
+        public void invalidate() {
+            checkValid();
+            invalid = true;
+            attributes.clear();
+        }
+
+        @Override
+        public boolean isNew() {
+            checkValid();
+            return true;
+        }
+    }
+}
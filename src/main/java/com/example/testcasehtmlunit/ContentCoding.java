@@ -0,0 +1,119 @@
+package com.example.testcasehtmlunit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The content codings of a response, negotiated with the {@code Accept-Encoding} header of the request.
+ * <p>
+ * {@code deflate} is the zlib format, as HTTP defines it.
+ */
+public enum ContentCoding {
+
+    // in order of preference when the client accepts several with the same quality
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    IDENTITY("identity");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * The value of the {@code Content-Encoding} header.
+     */
+    public String token() {
+        return token;
+    }
+
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPOutputStream(out);
+            case DEFLATE -> new DeflaterOutputStream(out);
+            case IDENTITY -> out;
+        };
+    }
+
+    public byte[] encode(byte[] bytes) {
+        if (this == IDENTITY) {
+            return bytes;
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (OutputStream out = wrap(encoded)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Every coding of the bytes, encoded once up front.
+     */
+    public static Map<ContentCoding, byte[]> encodeAll(byte[] bytes) {
+        Map<ContentCoding, byte[]> variants = new EnumMap<>(ContentCoding.class);
+        for (ContentCoding coding : values()) {
+            variants.put(coding, coding.encode(bytes));
+        }
+        return variants;
+    }
+
+    /**
+     * The offered coding the client accepts with the highest quality, {@link #IDENTITY} without the header
+     * or when it accepts none of the others.
+     */
+    public static ContentCoding negotiate(String acceptEncoding, Set<ContentCoding> offered) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return IDENTITY;
+        }
+        ContentCoding best = IDENTITY;
+        double bestQuality = 0;
+        for (ContentCoding coding : values()) {
+            if (coding == IDENTITY || !offered.contains(coding)) {
+                continue;
+            }
+            double quality = quality(acceptEncoding, coding.token);
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    private static double quality(String acceptEncoding, String token) {
+        double wildcard = 0;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String name = parts[0].strip().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].strip();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals(token)) {
+                return quality;
+            }
+            if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        return wildcard;
+    }
+}
@@ -1,13 +1,38 @@
 package com.example.testcasehtmlunit;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
 
 import static java.util.Objects.requireNonNullElse;
 import static org.springframework.http.MediaType.*;
@@ -16,6 +41,16 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 @Controller
 public class InspectController {
 
+    /**
+     * A case of {@code /bounce/batch}, {@code query} starts with {@code ?} like in the form.
+     * {@code file} is the name of the file attached to a multipart body, or {@code null}.
+     */
+    public record BounceCase(String method, String query, String contentType, String body, String accept, String file) {
+    }
+
+    private static final List<MediaType> BOUNCE_PRODUCES = List.of(TEXT_HTML, APPLICATION_JSON, APPLICATION_XML, TEXT_PLAIN);
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
     // language=HTML
     private static final String HTML = """
             <!DOCTYPE html>
@@ -138,7 +173,12 @@ public class InspectController {
                         xhr.setRequestHeader('Accept', accept);
                         xhr.onload = () => {
                             if (xhr.status >= 200 && xhr.status < 300) {
-                                if (method === 'HEAD') {
+                                let parameters = method === 'HEAD' ? xhr.getResponseHeader('X-Parameters') : null;
+                                if (parameters !== null) {
+                                    document.getElementById('output').textContent = decodeURIComponent(parameters);
+                                    document.getElementById('output').style.display = '';
+                                } else if (method === 'HEAD') {
+                                    // the parameters didn't fit in the header
                                     let xhr2 = new XMLHttpRequest();
                                     // async is slow
                                     //xhr2.open('GET', '/previousParameters', true);
@@ -176,10 +216,56 @@ public class InspectController {
             </html>
             """;
 
+    /**
+     * The header with the parameters of a HEAD request, percent encoded.
+     */
+    public static final String PARAMETERS_HEADER = "X-Parameters";
+    /**
+     * The maximum length of {@value #PARAMETERS_HEADER}, 4096 by default, longer parameters are kept in the session
+     * for {@code /previousParameters}. With 0 the parameters are always kept in the session.
+     */
+    public static final String PARAMETERS_HEADER_LIMIT_PROPERTY = "testcasehtmlunit.parameters.header.limit";
+
+    private final ObjectMapper objectMapper;
+    private final int parametersHeaderLimit;
+    private final WebApplicationContext context;
+    private final ObjectProvider<Filter> filters;
+    private volatile DispatcherServlet caseDispatcher;
+
+    public InspectController(ObjectMapper objectMapper, @Value("${" + PARAMETERS_HEADER_LIMIT_PROPERTY + ":4096}") int parametersHeaderLimit,
+                             WebApplicationContext context, ObjectProvider<Filter> filters) {
+        this.objectMapper = objectMapper;
+        this.parametersHeaderLimit = parametersHeaderLimit;
+        this.context = context;
+        this.filters = filters;
+    }
+
+    private static final byte[] HTML_BYTES = HTML.getBytes(StandardCharsets.UTF_8);
+    // the hash of the content is a strong validator, it only changes with the page
+    private static final String HTML_HASH = sha256(HTML_BYTES);
+    // compressed once, every coding of the page is a representation with an ETag of its own
+    private static final Map<ContentCoding, byte[]> HTML_VARIANTS = ContentCoding.encodeAll(HTML_BYTES);
+    // smaller dumps fit in a packet anyway
+    static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * Answers {@code If-None-Match} with the ETag of the page with {@code 304 Not Modified}.
+     * The page is sent in the coding the client prefers, compressed at startup.
+     */
     @GetMapping(path = "/form", produces = TEXT_HTML_VALUE)
-    @ResponseBody
-    public String doGet() {
-        return HTML;
+    public ResponseEntity<byte[]> doGet(@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ContentCoding coding = ContentCoding.negotiate(acceptEncoding, HTML_VARIANTS.keySet());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(TEXT_HTML, StandardCharsets.UTF_8))
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)));
+        if (coding == ContentCoding.IDENTITY) {
+            response.eTag("\"" + HTML_HASH + "\"");
+        } else {
+            response.eTag("\"" + HTML_HASH + "-" + coding.token() + "\"")
+                    .header(HttpHeaders.CONTENT_ENCODING, coding.token());
+        }
+        return response.body(HTML_VARIANTS.get(coding));
     }
 
     @GetMapping(path = "/previousParameters", produces = TEXT_PLAIN_VALUE)
@@ -193,39 +279,190 @@ public class InspectController {
             method = {GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE},
             //consumes = {APPLICATION_FORM_URLENCODED_VALUE, MULTIPART_FORM_DATA_VALUE},
             produces = {TEXT_HTML_VALUE, APPLICATION_JSON_VALUE, APPLICATION_XML_VALUE, TEXT_PLAIN_VALUE})
-    @ResponseBody
-    public String bounce(HttpMethod method, WebRequest request, @RequestParam(name = "file", required = false) MultipartFile file, HttpSession session) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Parameters: \n");
-
-        for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
-            String key = entry.getKey();
-            String[] values = entry.getValue();
-            sb.append("  '").append(key).append("': [");
-            if (values == null) {
-                sb.append("null");
+    public void bounce(
+            HttpMethod method,
+            HttpServletRequest request,
+            @RequestParam(name = "file", required = false) MultipartFile file,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        MediaType contentType = negotiate(accept);
+        // like the StringHttpMessageConverter, JSON is UTF-8 by definition and gets no charset
+        response.setContentType((contentType.equals(APPLICATION_JSON) ? contentType : new MediaType(contentType, StandardCharsets.UTF_8)).toString());
+        if (method == HttpMethod.HEAD) {
+            // a HEAD response has no body, the parameters are sent in a header, which saves the script a second request
+            String parameters = ParameterDumpWriter.dump(request.getParameterMap(), file);
+//            System.out.println("==================================");
+//            System.out.println(parameters);
+//            System.out.println("==================================");
+            String encoded = percentEncode(parameters);
+            if (encoded.length() <= parametersHeaderLimit) {
+                response.setHeader(PARAMETERS_HEADER, encoded);
             } else {
-                for (int i = 0, valuesLength = values.length; i < valuesLength; i++) {
-                    if (i != 0) {
-                        sb.append(", ");
-                    }
-                    sb.append("'").append(values[i]).append("'");
+                // only the follow-up request of a HEAD case reads the parameters from the session, the other cases don't need one
+                request.getSession().setAttribute("previousParameters", parameters);
+            }
+            return;
+        }
+        ParameterDumpWriter.write(request.getParameterMap(), file, length -> {
+            ContentCoding coding = length >= 0 && length < COMPRESSION_THRESHOLD
+                    ? ContentCoding.IDENTITY
+                    : ContentCoding.negotiate(acceptEncoding, EnumSet.allOf(ContentCoding.class));
+            if (coding == ContentCoding.IDENTITY) {
+                if (length >= 0) {
+                    response.setContentLength(length);
                 }
+                return response.getOutputStream();
             }
-            sb.append("]\n");
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+            return coding.wrap(response.getOutputStream());
+        });
+    }
+
+    /**
+     * The produced media type Spring would choose for a body: the accepted media types are sorted by quality
+     * and then by specificity, the first one compatible with a produced media type wins.
+     * The mapping already rejected the requests that accept none.
+     */
+    private static MediaType negotiate(String accept) {
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        if (accepted.isEmpty()) {
+            accepted.add(ALL);
         }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType acceptable : accepted) {
+            for (MediaType produced : BOUNCE_PRODUCES) {
+                if (acceptable.isCompatibleWith(produced)) {
+                    return produced;
+                }
+            }
+        }
+        return TEXT_PLAIN;
+    }
+
+    /**
+     * Bounces every case in one request, without the connection and session overhead per case.
+     * Every case is dispatched as a {@link BounceCaseRequest} through the filters of the application and a
+     * {@link DispatcherServlet} of its own to {@code /bounce}, so it is bound, negotiated and rejected like a request
+     * of its own. The body of a multipart case holds its form fields url encoded, its {@code file} is an empty file
+     * with that name. A HEAD case returns its parameters right away. A case the request would fail for results in its error.
+     * The dumps are streamed as a JSON array as soon as each case is done.
+     */
+    @PostMapping(path = "/bounce/batch", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bounceBatch(@RequestBody List<BounceCase> cases, HttpServletRequest request, HttpServletResponse response) {
+        // the cases the dispatcher can't even build a request for
+        List<String> errors = cases.stream().map(it -> it == null ? "Error 400" : it.method() == null ? "Error 405" : null).toList();
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_JSON)
+                .body(out -> {
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                    generator.writeStartArray();
+                    for (int i = 0; i < cases.size(); i++) {
+                        generator.writeString(errors.get(i) != null ? errors.get(i) : bounce(cases.get(i), request, response));
+                        generator.flush();
+                    }
+                    generator.writeEndArray();
+                    generator.flush();
+                });
+    }
 
-        if (file != null) {
-            sb.append("  '").append(file.getName()).append("': '").append(file.getOriginalFilename()).append("'\n");
+    private String bounce(BounceCase bounceCase, HttpServletRequest batchRequest, HttpServletResponse batchResponse) {
+        BounceCaseRequest request = new BounceCaseRequest(batchRequest, bounceCase);
+        BounceCaseResponse response = new BounceCaseResponse(batchResponse);
+        try {
+            dispatch(filters.orderedStream().iterator(), request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            // an unhandled exception results in an internal server error on a real server
+            return "Error 500";
+        }
+        int status = response.getStatus();
+        if (status < 200 || status >= 300) {
+            return "Error " + status;
         }
+        if (bounceCase.method().equals("HEAD")) {
+            String parameters = response.getHeader(PARAMETERS_HEADER);
+            if (parameters != null) {
+                return URLDecoder.decode(parameters, StandardCharsets.UTF_8);
+            }
+            HttpSession session = request.getSession(false);
+            return String.valueOf(session == null ? null : session.getAttribute("previousParameters"));
+        }
+        return response.getContentAsString();
+    }
 
-        session.setAttribute("previousParameters", sb.toString());
-//        System.out.println("==================================");
-//        System.out.println(sb);
-//        System.out.println("==================================");
-        if (method == HttpMethod.HEAD) {
-            return null;
+    private void dispatch(Iterator<Filter> chain, ServletRequest request, ServletResponse response) throws ServletException, IOException {
+        if (chain.hasNext()) {
+            chain.next().doFilter(request, response, (filteredRequest, filteredResponse) -> dispatch(chain, filteredRequest, filteredResponse));
+        } else {
+            caseDispatcher().service(request, response);
+        }
+    }
+
+    /**
+     * A dispatcher with the handler mappings, adapters, resolvers and the multipart resolver of the application,
+     * separate from the one serving the batch, which is in the middle of the batch request.
+     */
+    private DispatcherServlet caseDispatcher() throws ServletException {
+        DispatcherServlet dispatcher = caseDispatcher;
+        if (dispatcher == null) {
+            synchronized (this) {
+                dispatcher = caseDispatcher;
+                if (dispatcher == null) {
+                    dispatcher = new DispatcherServlet(context);
+                    dispatcher.setPublishContext(false);
+                    dispatcher.init(new ServletConfig() {
+
+                        @Override
+                        public String getServletName() {
+                            return "bounceBatch";
+                        }
+
+                        @Override
+                        public ServletContext getServletContext() {
+                            return context.getServletContext();
+                        }
+
+                        @Override
+                        public String getInitParameter(String name) {
+                            return null;
+                        }
+
+                        @Override
+                        public Enumeration<String> getInitParameterNames() {
+                            return Collections.emptyEnumeration();
+                        }
+                    });
+                    caseDispatcher = dispatcher;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Encodes every byte of the UTF-8 encoded value outside of the printable ASCII characters, and {@code %} and {@code +},
+     * so both {@code decodeURIComponent} and {@code URLDecoder} decode it. The dumps are mostly printable ASCII, unlike
+     * Base64 this keeps them about as long.
+     */
+    static String percentEncode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder(bytes.length + 16);
+        for (byte b : bytes) {
+            if (b >= 0x20 && b < 0x7f && b != '%' && b != '+') {
+                sb.append((char) b);
+            } else {
+                sb.append('%').append(HEX.toHexDigits(b));
+            }
         }
         return sb.toString();
     }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
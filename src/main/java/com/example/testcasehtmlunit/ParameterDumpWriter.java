@@ -0,0 +1,166 @@
+package com.example.testcasehtmlunit;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes the dump of the parameters of {@code /bounce} straight to the response, encoded as UTF-8
+ * through a buffer of the thread, without building the dump as a string first.
+ * <p>
+ * The stream is only opened when the buffer is full or the dump is complete, so a dump that fits in the buffer
+ * is sent with its length and the target can decide on the coding by the length. On virtual threads
+ * every request gets a new buffer, the buffer only pays off on platform threads.
+ */
+public final class ParameterDumpWriter {
+
+    /**
+     * Opens the stream of the response.
+     */
+    public interface Target {
+
+        /**
+         * @param length the length of the complete dump, or {@code -1} when it's larger than the buffer
+         */
+        OutputStream open(int length) throws IOException;
+    }
+
+    static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<ParameterDumpWriter> WRITERS = ThreadLocal.withInitial(ParameterDumpWriter::new);
+
+    private static final byte[] HEADER = "Parameters: \n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_START = "  '".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUES_START = "': [".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUES_END = "]\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEPARATOR = ", ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUOTE = "'".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FILE_SEPARATOR = "': '".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FILE_END = "'\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private Target target;
+    private OutputStream out;
+
+    private ParameterDumpWriter() {
+    }
+
+    /**
+     * The dump as a string, for the parameters of HEAD.
+     */
+    public static String dump(Map<String, String[]> parameterMap, MultipartFile file) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(parameterMap, file, length -> out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the dump encoded as UTF-8 and closes the stream.
+     * <p>
+     * The dump is {@code Parameters: } followed by a line {@code 'key': ['value', ...]} per parameter
+     * and {@code 'file': 'name'} for the file.
+     */
+    public static void write(Map<String, String[]> parameterMap, MultipartFile file, Target target) throws IOException {
+        ParameterDumpWriter writer = WRITERS.get();
+        writer.target = target;
+        try {
+            writer.writeDump(parameterMap, file);
+        } finally {
+            writer.target = null;
+            writer.out = null;
+            writer.count = 0;
+        }
+    }
+
+    private void writeDump(Map<String, String[]> parameterMap, MultipartFile file) throws IOException {
+        append(HEADER);
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            String[] values = entry.getValue();
+            append(KEY_START);
+            append(entry.getKey());
+            append(VALUES_START);
+            if (values == null) {
+                append(NULL);
+            } else {
+                for (int i = 0; i < values.length; i++) {
+                    if (i != 0) {
+                        append(SEPARATOR);
+                    }
+                    append(QUOTE);
+                    append(values[i]);
+                    append(QUOTE);
+                }
+            }
+            append(VALUES_END);
+        }
+        if (file != null) {
+            append(KEY_START);
+            append(file.getName());
+            append(FILE_SEPARATOR);
+            append(String.valueOf(file.getOriginalFilename()));
+            append(FILE_END);
+        }
+        if (out == null) {
+            out = target.open(count);
+        }
+        out.write(buffer, 0, count);
+        out.close();
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        if (count + bytes.length > buffer.length) {
+            flush();
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Encodes like {@code String.getBytes(UTF_8)}, an unpaired surrogate becomes {@code ?}.
+     */
+    private void append(String s) throws IOException {
+        for (int i = 0, length = s.length(); i < length; i++) {
+            if (count + 4 > buffer.length) {
+                flush();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xc0 | c >> 6);
+                buffer[count++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer[count++] = (byte) (0xf0 | codePoint >> 18);
+                buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                buffer[count++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                buffer[count++] = '?';
+            } else {
+                buffer[count++] = (byte) (0xe0 | c >> 12);
+                buffer[count++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[count++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        if (out == null) {
+            out = target.open(-1);
+        }
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.testcasehtmlunit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A template with {@code %s} placeholders, split once into UTF-8 encoded segments.
+ * <p>
+ * Rendering writes the segments and the values straight to the stream, the same bytes as
+ * {@code template.formatted(values).getBytes(UTF_8)}, without parsing the format or building the whole page as a string.
+ * <p>
+ * The {@linkplain #encoded(ContentCoding) encoded} templates hold every segment compressed once up front.
+ * The values are a few bytes of session state, so they are written as stored deflate blocks, which costs a checksum
+ * but no compression per response. For gzip every segment and every value is a gzip member of its own,
+ * a gzip stream may consist of several members. For deflate the segments are raw deflate blocks flushed to a byte boundary,
+ * which form a single zlib stream with the stored blocks of the values, the Adler-32 of the segments is combined with the values.
+ */
+public final class PreEncodedTemplate {
+
+    private static final int MAX_STORED_BLOCK = 0xFFFF;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+    private static final byte[] FINAL_EMPTY_STORED_BLOCK = {1, 0, 0, (byte) 0xff, (byte) 0xff};
+    private static final int ADLER_BASE = 65521;
+
+    private final ContentCoding coding;
+    private final byte[][] segments;
+    // the Adler-32 and the length of the segments before deflating, only for deflate
+    private final long[] checksums;
+    private final int[] plainLengths;
+    private Map<ContentCoding, PreEncodedTemplate> encoded;
+
+    private PreEncodedTemplate(ContentCoding coding, byte[][] segments, long[] checksums, int[] plainLengths) {
+        this.coding = coding;
+        this.segments = segments;
+        this.checksums = checksums;
+        this.plainLengths = plainLengths;
+    }
+
+    /**
+     * Only {@code %s} and {@code %%} are supported.
+     */
+    public static PreEncodedTemplate compile(String template) {
+        List<byte[]> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c != '%') {
+                segment.append(c);
+            } else if (i + 1 < template.length() && template.charAt(i + 1) == '%') {
+                segment.append('%');
+                i++;
+            } else if (i + 1 < template.length() && template.charAt(i + 1) == 's') {
+                segments.add(segment.toString().getBytes(StandardCharsets.UTF_8));
+                segment.setLength(0);
+                i++;
+            } else {
+                throw new IllegalArgumentException("Unsupported format specifier at " + i + ", only %s and %% are supported");
+            }
+        }
+        segments.add(segment.toString().getBytes(StandardCharsets.UTF_8));
+        byte[][] plain = segments.toArray(new byte[0][]);
+        Map<ContentCoding, PreEncodedTemplate> encoded = new EnumMap<>(ContentCoding.class);
+        encoded.put(ContentCoding.IDENTITY, new PreEncodedTemplate(ContentCoding.IDENTITY, plain, null, null));
+        encoded.put(ContentCoding.GZIP, gzipped(plain));
+        encoded.put(ContentCoding.DEFLATE, deflated(plain));
+        encoded.values().forEach(it -> it.encoded = encoded);
+        return encoded.get(ContentCoding.IDENTITY);
+    }
+
+    private static PreEncodedTemplate gzipped(byte[][] plain) {
+        byte[][] members = new byte[plain.length][];
+        for (int i = 0; i < plain.length; i++) {
+            members[i] = plain[i].length == 0 ? plain[i] : ContentCoding.GZIP.encode(plain[i]);
+        }
+        return new PreEncodedTemplate(ContentCoding.GZIP, members, null, null);
+    }
+
+    private static PreEncodedTemplate deflated(byte[][] plain) {
+        byte[][] blocks = new byte[plain.length][];
+        long[] checksums = new long[plain.length];
+        int[] plainLengths = new int[plain.length];
+        for (int i = 0; i < plain.length; i++) {
+            blocks[i] = deflateFlushed(plain[i]);
+            checksums[i] = adler32(plain[i]);
+            plainLengths[i] = plain[i].length;
+        }
+        blocks[0] = concat(ZLIB_HEADER, blocks[0]);
+        blocks[plain.length - 1] = concat(blocks[plain.length - 1], FINAL_EMPTY_STORED_BLOCK);
+        return new PreEncodedTemplate(ContentCoding.DEFLATE, blocks, checksums, plainLengths);
+    }
+
+    /**
+     * Raw deflate blocks without the final block, flushed to a byte boundary, so other blocks can follow.
+     * The blocks don't refer back to data before them, they stay valid wherever they are in the stream.
+     */
+    private static byte[] deflateFlushed(byte[] bytes) {
+        if (bytes.length == 0) {
+            return bytes;
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            int length;
+            do {
+                length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, length);
+            } while (length == buffer.length);
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * The template for the content coding, the values are passed unencoded to {@link #length(byte[]...)} and {@link #writeTo(OutputStream, byte[]...)} of every template.
+     */
+    public PreEncodedTemplate encoded(ContentCoding coding) {
+        return encoded.get(coding);
+    }
+
+    public int placeholders() {
+        return segments.length - 1;
+    }
+
+    /**
+     * The number of bytes {@link #writeTo(OutputStream, byte[]...)} writes.
+     */
+    public int length(byte[]... values) {
+        int length = coding == ContentCoding.DEFLATE ? 4 : 0;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        for (byte[] value : values) {
+            length += encodedLength(value.length);
+        }
+        return length;
+    }
+
+    private int encodedLength(int length) {
+        // an empty value is left out
+        if (coding == ContentCoding.IDENTITY || length == 0) {
+            return length;
+        }
+        int stored = length + 5 * ((length + MAX_STORED_BLOCK - 1) / MAX_STORED_BLOCK);
+        return coding == ContentCoding.GZIP ? GZIP_HEADER.length + stored + 8 : stored;
+    }
+
+    public static byte[][] encode(String... values) {
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    public void writeTo(OutputStream out, byte[]... values) throws IOException {
+        if (values.length != placeholders()) {
+            throw new IllegalArgumentException("Expected " + placeholders() + " values, got " + values.length);
+        }
+        long checksum = 1;
+        for (int i = 0; i < values.length; i++) {
+            out.write(segments[i]);
+            byte[] value = values[i];
+            switch (coding) {
+                case IDENTITY -> out.write(value);
+                case GZIP -> {
+                    if (value.length > 0) {
+                        CRC32 crc = new CRC32();
+                        crc.update(value);
+                        out.write(GZIP_HEADER);
+                        writeStored(out, value, true);
+                        writeIntLittleEndian(out, crc.getValue());
+                        writeIntLittleEndian(out, value.length);
+                    }
+                }
+                case DEFLATE -> {
+                    if (value.length > 0) {
+                        writeStored(out, value, false);
+                    }
+                    checksum = adler32Combine(adler32Combine(checksum, checksums[i], plainLengths[i]), adler32(value), value.length);
+                }
+            }
+        }
+        out.write(segments[values.length]);
+        if (coding == ContentCoding.DEFLATE) {
+            checksum = adler32Combine(checksum, checksums[values.length], plainLengths[values.length]);
+            out.write((int) (checksum >>> 24));
+            out.write((int) (checksum >>> 16));
+            out.write((int) (checksum >>> 8));
+            out.write((int) checksum);
+        }
+    }
+
+    // stored blocks of at most 64 KiB, the stream is at a byte boundary before and after
+    private static void writeStored(OutputStream out, byte[] value, boolean last) throws IOException {
+        for (int offset = 0; offset < value.length; offset += MAX_STORED_BLOCK) {
+            int length = Math.min(MAX_STORED_BLOCK, value.length - offset);
+            out.write(last && offset + length == value.length ? 1 : 0);
+            out.write(length);
+            out.write(length >>> 8);
+            out.write(~length);
+            out.write(~length >>> 8);
+            out.write(value, offset, length);
+        }
+    }
+
+    private static void writeIntLittleEndian(OutputStream out, long value) throws IOException {
+        out.write((int) value);
+        out.write((int) (value >>> 8));
+        out.write((int) (value >>> 16));
+        out.write((int) (value >>> 24));
+    }
+
+    private static long adler32(byte[] bytes) {
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        return adler.getValue();
+    }
+
+    /**
+     * The Adler-32 of the concatenation from the Adler-32 of both parts, like {@code adler32_combine} of zlib.
+     */
+    static long adler32Combine(long first, long second, int secondLength) {
+        long remainder = secondLength % ADLER_BASE;
+        long sum1 = first & 0xffff;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (second & 0xffff) + ADLER_BASE - 1;
+        sum2 += ((first >>> 16) & 0xffff) + ((second >>> 16) & 0xffff) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= 2L * ADLER_BASE) {
+            sum2 -= 2L * ADLER_BASE;
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+}
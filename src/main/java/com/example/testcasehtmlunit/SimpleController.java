@@ -1,12 +1,15 @@
 package com.example.testcasehtmlunit;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNullElse;
@@ -19,7 +22,7 @@ import static org.springframework.web.util.HtmlUtils.htmlEscape;
 public class SimpleController {
 
     // language=HTML
-    private static final String HTML_TEMPLATE = """
+    static final String HTML_TEMPLATE = """
             <!DOCTYPE html>
             <html lang="en">
             <head>
@@ -299,27 +302,40 @@ public class SimpleController {
             </html>
             """;
 
+    // split once into pre-encoded segments, rendered without String.formatted
+    static final PreEncodedTemplate TEMPLATE = PreEncodedTemplate.compile(HTML_TEMPLATE);
+
     @GetMapping
-    @ResponseBody
-    public String doGet(
+    public void doGet(
             @SessionAttribute(name = "submittedForm", required = false) String submittedForm,
             @SessionAttribute(name = "valuesOfX", required = false) String valuesOfX,
             @SessionAttribute(name = "fileName", required = false) String fileName,
             @SessionAttribute(name = "fileContents", required = false) String fileContents,
             @SessionAttribute(name = "json", required = false) String json,
-            HttpSession session) {
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpSession session,
+            HttpServletResponse response) throws IOException {
         session.removeAttribute("submittedForm");
         session.removeAttribute("valuesOfX");
         session.removeAttribute("fileName");
         session.removeAttribute("fileContents");
         session.removeAttribute("json");
-        return HTML_TEMPLATE.formatted(
+        byte[][] values = PreEncodedTemplate.encode(
                 htmlEscape(requireNonNullElse(submittedForm, "none")),
                 htmlEscape(requireNonNullElse(valuesOfX, "none")),
                 htmlEscape(requireNonNullElse(fileName, "none")),
                 htmlEscape(requireNonNullElse(fileContents, "none")),
                 htmlEscape(requireNonNullElse(json, "none"))
         );
+        ContentCoding coding = ContentCoding.negotiate(acceptEncoding, EnumSet.allOf(ContentCoding.class));
+        PreEncodedTemplate template = TEMPLATE.encoded(coding);
+        if (coding != ContentCoding.IDENTITY) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentType(TEXT_HTML_VALUE + ";charset=UTF-8");
+        response.setContentLength(template.length(values));
+        template.writeTo(response.getOutputStream(), values);
     }
 
     @PostMapping(params = "form=1")
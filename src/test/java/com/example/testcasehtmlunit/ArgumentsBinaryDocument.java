@@ -0,0 +1,183 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Compact binary encoding of the {@code <arguments>} records of an {@link ArgumentsXmlDocument}.
+ * <p>
+ * Layout: a header (magic, version, offset of the index, length of the index),
+ * the records (nr followed by method, query, encoding, body, accept and actual as length-prefixed UTF-8)
+ * and finally the index, one {@code long} offset per nr ({@code -1} when there is no record for that nr).
+ * The file is memory-mapped so any case can be fetched without scanning the document.
+ */
+public class ArgumentsBinaryDocument {
+
+    private static final int MAGIC = 0x41524753; // "ARGS"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 4;
+
+    private final MappedByteBuffer buffer;
+    private final long indexOffset;
+    private final int indexLength;
+
+    private ArgumentsBinaryDocument(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not an arguments binary document");
+        }
+        indexOffset = buffer.getLong(8);
+        indexLength = buffer.getInt(16);
+    }
+
+    public static ArgumentsBinaryDocument open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            return new ArgumentsBinaryDocument(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public boolean contains(int nr) {
+        return offsetOf(nr) >= 0;
+    }
+
+    public Arguments get(int nr) {
+        long offset = offsetOf(nr);
+        if (offset < 0) {
+            throw new NoSuchElementException("No arguments with nr " + nr);
+        }
+        ByteBuffer record = buffer.duplicate().position((int) offset);
+        return Arguments.of(
+                record.getInt(),
+                readString(record),
+                readString(record),
+                readString(record),
+                readString(record),
+                readString(record),
+                readString(record)
+        );
+    }
+
+    public Stream<Arguments> stream() {
+        return IntStream.range(0, indexLength)
+                .filter(this::contains)
+                .mapToObj(this::get);
+    }
+
+    private long offsetOf(int nr) {
+        if (nr < 0 || nr >= indexLength) {
+            return -1;
+        }
+        return buffer.getLong((int) (indexOffset + 8L * nr));
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void toBinary(Path xml, Path binary) throws Exception {
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments(xml);
+             FileChannel channel = FileChannel.open(binary, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            long[] offsets = new long[0];
+            ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+            long position = HEADER_LENGTH;
+            channel.position(position);
+            for (Arguments argument : (Iterable<Arguments>) arguments::iterator) {
+                Object[] values = argument.get();
+                int nr = (int) values[0];
+                byte[][] strings = new byte[values.length - 1][];
+                int length = 4;
+                for (int i = 1; i < values.length; i++) {
+                    strings[i - 1] = ((String) values[i]).getBytes(StandardCharsets.UTF_8);
+                    length += 4 + strings[i - 1].length;
+                }
+                if (out.remaining() < length) {
+                    writeFully(channel, out);
+                    if (out.capacity() < length) {
+                        out = ByteBuffer.allocate(length);
+                    }
+                }
+                if (nr >= offsets.length) {
+                    int oldLength = offsets.length;
+                    offsets = Arrays.copyOf(offsets, Math.max(nr + 1, oldLength * 2));
+                    Arrays.fill(offsets, oldLength, offsets.length, -1L);
+                }
+                offsets[nr] = position;
+                out.putInt(nr);
+                for (byte[] string : strings) {
+                    out.putInt(string.length).put(string);
+                }
+                position += length;
+            }
+            int indexLength = 0;
+            for (int nr = 0; nr < offsets.length; nr++) {
+                if (offsets[nr] >= 0) {
+                    indexLength = nr + 1;
+                }
+            }
+            for (int nr = 0; nr < indexLength; nr++) {
+                if (out.remaining() < 8) {
+                    writeFully(channel, out);
+                }
+                out.putLong(offsets[nr]);
+            }
+            writeFully(channel, out);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(position)
+                    .putInt(indexLength)
+                    .flip();
+            channel.write(header, 0);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * The binary document does not keep the expected values, they are written as unknown.
+     */
+    public static void toXml(Path binary, Path xml) throws Exception {
+        ArgumentsBinaryDocument document = open(binary);
+        try (ArgumentsXmlDocument output = new ArgumentsXmlDocument(xml)) {
+            output.writeStart();
+            for (Arguments argument : (Iterable<Arguments>) document.stream()::iterator) {
+                Object[] values = argument.get();
+                output.writeArguments((int) values[0], (String) values[1], (String) values[2], (String) values[3],
+                        (String) values[4], (String) values[5], "???Unknown???", (String) values[6]);
+            }
+        }
+    }
+
+    /**
+     * Converts an xml document to binary or the other way around, depending on the extension of the source.
+     */
+    public static void main(String[] args) throws Exception {
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        if (source.getFileName().toString().endsWith(".xml")) {
+            toBinary(source, target);
+        } else {
+            toXml(source, target);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ArgumentsBinaryDocumentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldGetArgumentsByNr() throws Exception {
+        Path binary = tempDir.resolve("OutputFromFirefox2.bin");
+        ArgumentsBinaryDocument.toBinary(resource("/OutputFromFirefox2.xml"), binary);
+
+        ArgumentsBinaryDocument document = ArgumentsBinaryDocument.open(binary);
+
+        assertThat(document.get(108).get(), is(new Object[]{108, "POST", "", "text/plain", "oneParameter", "text/html", "Parameters: \n  'p1': ['v1']"}));
+        assertThrows(NoSuchElementException.class, () -> document.get(100_000));
+    }
+
+    @Test
+    void shouldRoundTripThroughXml() throws Exception {
+        Path binary = tempDir.resolve("OutputFromFirefox2.bin");
+        Path xml = tempDir.resolve("OutputFromFirefox2.xml");
+        ArgumentsBinaryDocument.toBinary(resource("/OutputFromFirefox2.xml"), binary);
+        ArgumentsBinaryDocument.toXml(binary, xml);
+
+        assertThat(read(xml), is(read(resource("/OutputFromFirefox2.xml"))));
+    }
+
+    private static Path resource(String name) throws Exception {
+        return Path.of(ArgumentsBinaryDocumentTest.class.getResource(name).toURI());
+    }
+
+    private static List<List<Object>> read(Path xml) throws Exception {
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments(xml)) {
+            return arguments.map(it -> List.of(it.get())).toList();
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.example.testcasehtmlunit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalizes the values read from result files, so equal values share one {@code String} instance.
+ * <p>
+ * Method, query, encoding, body and accept only have a handful of distinct values and actual a few hundred,
+ * so loading several revisions side by side keeps only one copy of each.
+ * Can be shared between threads.
+ */
+public class ArgumentsDictionary {
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public String canonicalize(String value) {
+        lookups.increment();
+        String canonical = values.putIfAbsent(value, value);
+        if (canonical == null) {
+            return value;
+        }
+        savedBytes.add(estimateSize(value));
+        return canonical;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Estimated heap no longer retained because duplicates were replaced by the canonical instance.
+     */
+    public long savedBytes() {
+        return savedBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "%d distinct values for %d lookups, saved about %d KiB".formatted(size(), lookups(), savedBytes() / 1024);
+    }
+
+    /**
+     * Size of a String with compact strings and compressed oops: 24 bytes for the String, 16 bytes plus the contents for its byte[].
+     */
+    private static long estimateSize(String value) {
+        boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+        long contents = latin1 ? value.length() : 2L * value.length();
+        return 24 + align(16 + contents);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
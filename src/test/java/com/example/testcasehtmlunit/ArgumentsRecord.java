@@ -0,0 +1,4 @@
+package com.example.testcasehtmlunit;
+
+record ArgumentsRecord(int nr, String method, String query, String encoding, String body, String accept, String expected, String actual) {
+}
@@ -0,0 +1,140 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Compares result files written by {@link ArgumentsXmlDocument} case by case.
+ * <p>
+ * The files are merge-joined on {@code nr} in a single streaming pass, so only the changed cases are kept in memory.
+ * Every file is expected to be ordered by {@code nr}, as written by a serial run.
+ */
+public class ArgumentsXmlDiff {
+
+    /**
+     * A case whose actual value differs between the files, {@code null} when a file does not contain the case.
+     */
+    public record Change(int nr, List<String> actuals) {
+    }
+
+    public record Report(List<Path> files, int compared, SortedMap<String, List<Change>> changesByGroup, ArgumentsDictionary dictionary) {
+
+        public int changed() {
+            return changesByGroup.values().stream().mapToInt(List::size).sum();
+        }
+
+        public void print(PrintStream out) {
+            out.println("Compared " + compared + " cases in " + files + ", " + changed() + " changed");
+            out.println("Dictionary: " + dictionary);
+            changesByGroup.forEach((group, changes) -> {
+                out.println(group + " (" + changes.size() + " changed)");
+                for (Change change : changes) {
+                    out.println("  " + change.nr() + ":");
+                    for (int i = 0; i < files.size(); i++) {
+                        out.println("    " + files.get(i).getFileName() + ": " + change.actuals().get(i));
+                    }
+                }
+            });
+        }
+    }
+
+    public static Report diff(List<Path> files) throws Exception {
+        return diff(files, new ArgumentsDictionary());
+    }
+
+    /**
+     * The values of all files are canonicalized through the dictionary, so the retained changes share their strings.
+     */
+    public static Report diff(List<Path> files, ArgumentsDictionary dictionary) throws Exception {
+        List<Stream<Arguments>> streams = new ArrayList<>();
+        try {
+            List<Cursor> cursors = new ArrayList<>();
+            for (Path file : files) {
+                Stream<Arguments> stream = ArgumentsXmlDocument.streamArguments(file, dictionary);
+                streams.add(stream);
+                cursors.add(new Cursor(file, stream.iterator()));
+            }
+            int compared = 0;
+            SortedMap<String, List<Change>> changesByGroup = new TreeMap<>();
+            while (true) {
+                int nr = Integer.MAX_VALUE;
+                for (Cursor cursor : cursors) {
+                    if (cursor.current != null) {
+                        nr = Math.min(nr, cursor.nr());
+                    }
+                }
+                if (nr == Integer.MAX_VALUE) {
+                    break;
+                }
+                compared++;
+                Object[] values = null;
+                List<String> actuals = new ArrayList<>(cursors.size());
+                for (Cursor cursor : cursors) {
+                    if (cursor.current != null && cursor.nr() == nr) {
+                        values = cursor.current;
+                        actuals.add((String) cursor.current[6]);
+                        cursor.advance();
+                    } else {
+                        actuals.add(null);
+                    }
+                }
+                if (new HashSet<>(actuals).size() > 1) {
+                    String group = "method=" + values[1] + ", encoding=" + values[3] + ", query=" + values[2];
+                    changesByGroup.computeIfAbsent(group, it -> new ArrayList<>()).add(new Change(nr, actuals));
+                }
+            }
+            return new Report(List.copyOf(files), compared, changesByGroup, dictionary);
+        } finally {
+            streams.forEach(Stream::close);
+        }
+    }
+
+    /**
+     * Diffs every group of files as a separate task on the given pool, sharing one dictionary.
+     */
+    public static List<Report> diffAll(List<List<Path>> fileGroups, ForkJoinPool pool) {
+        ArgumentsDictionary dictionary = new ArgumentsDictionary();
+        List<ForkJoinTask<Report>> tasks = fileGroups.stream()
+                .map(files -> ForkJoinTask.adapt(() -> diff(files, dictionary)))
+                .toList();
+        return pool.submit(() -> ForkJoinTask.invokeAll(tasks).stream().map(ForkJoinTask::join).toList()).join();
+    }
+
+    private static class Cursor {
+
+        private final Path file;
+        private final Iterator<Arguments> iterator;
+        private Object[] current;
+
+        Cursor(Path file, Iterator<Arguments> iterator) {
+            this.file = file;
+            this.iterator = iterator;
+            advance();
+        }
+
+        int nr() {
+            return (int) current[0];
+        }
+
+        void advance() {
+            Object[] previous = current;
+            current = iterator.hasNext() ? iterator.next().get() : null;
+            if (previous != null && current != null && (int) current[0] <= (int) previous[0]) {
+                throw new IllegalStateException(file + " is not ordered by nr at " + current[0]);
+            }
+        }
+    }
+
+    /**
+     * Usage: {@code ArgumentsXmlDiff base.xml other.xml...}
+     */
+    public static void main(String[] args) throws Exception {
+        diff(Arrays.stream(args).map(Path::of).toList()).print(System.out);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ArgumentsXmlDiffTest {
+
+    @Test
+    void shouldReportNoChangesForSameFile() throws Exception {
+        Path file = resource("/OutputFromFirefox2.xml");
+
+        ArgumentsXmlDiff.Report report = ArgumentsXmlDiff.diff(List.of(file, file));
+
+        assertThat(report.compared(), is(2912));
+        assertThat(report.changed(), is(0));
+    }
+
+    @Test
+    void shouldReportMissingCasesAsChanged() throws Exception {
+        Path firefox = resource("/OutputFromFirefox.xml");
+        Path firefox2 = resource("/OutputFromFirefox2.xml");
+
+        List<ArgumentsXmlDiff.Report> reports = ArgumentsXmlDiff.diffAll(
+                List.of(List.of(firefox, firefox2), List.of(firefox2, firefox2)),
+                ForkJoinPool.commonPool());
+
+        assertThat(reports.get(0).compared(), is(3080));
+        assertThat(reports.get(0).changed(), greaterThanOrEqualTo(3080 - 2912));
+        assertThat(reports.get(1).changed(), is(0));
+    }
+
+    private static Path resource(String name) throws Exception {
+        return Path.of(ArgumentsXmlDiffTest.class.getResource(name).toURI());
+    }
+
+}
@@ -3,76 +3,309 @@ package com.example.testcasehtmlunit;
 import org.junit.jupiter.params.provider.Arguments;
 
 import javax.xml.stream.*;
-import javax.xml.stream.events.XMLEvent;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static javax.xml.stream.XMLStreamConstants.*;
 
 public class ArgumentsXmlDocument implements AutoCloseable {
 
+    /**
+     * Set this system property to {@code true} to write {@code .xml.gz} files by default.
+     */
+    public static final String COMPRESS_PROPERTY = "testcasehtmlunit.output.compress";
+    public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
     private final ReentrantLock lock = new ReentrantLock();
-    private final String name;
+    private final Path path;
+    private final boolean checkpoint;
+    private final BitSet written = new BitSet();
+    private final BitSet failures = new BitSet();
+    private final SortedMap<Integer, Long> durations = new ConcurrentSkipListMap<>();
+    private FileChannel channel;
     private BufferedWriter bufferedWriter;
     private XMLStreamWriter xmlStreamWriter;
 
     public ArgumentsXmlDocument() {
-        name = "output-" + LocalDateTime.now().toString().replaceAll("[^-.0-9A-Za-z]+", "-") + ".xml";
+        this(Boolean.getBoolean(COMPRESS_PROPERTY));
+    }
+
+    public ArgumentsXmlDocument(boolean compress) {
+        this(newPath(compress));
+    }
+
+    /**
+     * The document is gzip compressed when the file name ends with {@code .gz}.
+     */
+    public ArgumentsXmlDocument(Path path) {
+        this(path, false);
+    }
+
+    /**
+     * With {@code checkpoint} every write is forced to disk and followed by a {@code <path>.checkpoint} file
+     * holding the length of the complete records, so an interrupted run can be {@linkplain #resume(Path) resumed}.
+     */
+    public ArgumentsXmlDocument(Path path, boolean checkpoint) {
+        if (checkpoint && path.getFileName().toString().endsWith(".gz")) {
+            throw new IllegalArgumentException("Checkpoints are not supported for compressed documents");
+        }
+        this.path = path;
+        this.checkpoint = checkpoint;
+    }
+
+    public static Path newPath(boolean compress) {
+        return newPath("output-", compress);
+    }
+
+    public static Path newPath(String prefix, boolean compress) {
+        return Path.of(prefix + LocalDateTime.now().toString().replaceAll("[^-.0-9A-Za-z]+", "-") + (compress ? ".xml.gz" : ".xml"));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * The nrs of the records written so far.
+     */
+    public BitSet getWrittenNrs() {
+        lock.lock();
+        try {
+            return (BitSet) written.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The checkpoint of the most recently interrupted run in the directory.
+     */
+    public static Optional<Path> findCheckpoint(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(it -> it.getFileName().toString().startsWith("output-") && it.getFileName().toString().endsWith(CHECKPOINT_SUFFIX))
+                    .max(Comparator.comparing(it -> it.toFile().lastModified()));
+        }
+    }
+
+    /**
+     * Recovers the complete records of an interrupted run and continues writing the same document.
+     * Records after the checkpoint are dropped, because they may have been written partially.
+     */
+    public static ArgumentsXmlDocument resume(Path checkpointFile) throws Exception {
+        String name = checkpointFile.getFileName().toString();
+        Path path = checkpointFile.resolveSibling(name.substring(0, name.length() - CHECKPOINT_SUFFIX.length()));
+        long length = Long.parseLong(Files.readString(checkpointFile, StandardCharsets.US_ASCII).strip());
+        Path partial = path.resolveSibling(path.getFileName() + ".partial");
+        Files.move(path, partial, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel partialChannel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            partialChannel.truncate(length);
+        }
+        final List<ArgumentsRecord> records;
+        InputStream in = new SequenceInputStream(Files.newInputStream(partial),
+                new ByteArrayInputStream("\n</root>\n".getBytes(StandardCharsets.UTF_8)));
+        try (Stream<ArgumentsRecord> recovered = streamRecords(in)) {
+            records = recovered.toList();
+        }
+        ArgumentsXmlDocument document = new ArgumentsXmlDocument(path, true);
+        document.writeStart();
+        document.writeArguments(records);
+        Files.delete(partial);
+        return document;
     }
 
     public static List<Arguments> readArguments(String resource) throws IOException, XMLStreamException {
-        final List<Arguments> arguments = new ArrayList<>();
-        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-        try (InputStream in = InspectController2Test.class.getResourceAsStream(resource)) {
-            StringBuilder sb = new StringBuilder();
-            int nr = -1;
-            String method = "";
-            String query = "";
-            String encoding = "";
-            String body = "";
-            String accept = "";
-            String actual = "";
-            XMLEventReader reader = null;
+        try (Stream<Arguments> arguments = streamArguments(resource)) {
+            return arguments.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Lazily reads the arguments from a resource, one record at a time.
+     * Falls back to the {@code .gz} variant of the resource, compressed input is detected and decompressed while streaming.
+     * The returned stream must be closed to release the underlying resource.
+     */
+    public static Stream<Arguments> streamArguments(String resource) throws IOException, XMLStreamException {
+        return streamArguments(resource, null);
+    }
+
+    /**
+     * Like {@link #streamArguments(String)}, but the values are canonicalized through the dictionary.
+     */
+    public static Stream<Arguments> streamArguments(String resource, ArgumentsDictionary dictionary) throws IOException, XMLStreamException {
+        InputStream in = ArgumentsXmlDocument.class.getResourceAsStream(resource);
+        if (in == null) {
+            in = ArgumentsXmlDocument.class.getResourceAsStream(resource + ".gz");
+        }
+        if (in == null) {
+            throw new FileNotFoundException(resource);
+        }
+        return streamArguments(in, dictionary);
+    }
+
+    public static Stream<Arguments> streamArguments(Path path) throws IOException, XMLStreamException {
+        return streamArguments(path, null);
+    }
+
+    public static Stream<Arguments> streamArguments(Path path, ArgumentsDictionary dictionary) throws IOException, XMLStreamException {
+        return streamArguments(Files.newInputStream(path), dictionary);
+    }
+
+    static Stream<Arguments> streamArguments(InputStream raw, ArgumentsDictionary dictionary) throws IOException, XMLStreamException {
+        return stream(raw, dictionary, (nr, method, query, encoding, body, accept, expected, actual) ->
+                Arguments.of(nr, method, query, encoding, body, accept, actual));
+    }
+
+    /**
+     * Like {@link #streamArguments(Path)}, but including the expected values.
+     */
+    static Stream<ArgumentsRecord> streamRecords(InputStream raw) throws IOException, XMLStreamException {
+        return stream(raw, null, ArgumentsRecord::new);
+    }
+
+    private static <T> Stream<T> stream(InputStream raw, ArgumentsDictionary dictionary, RecordFactory<T> factory) throws IOException, XMLStreamException {
+        final InputStream in;
+        final XMLStreamReader reader;
+        try {
+            in = decompressIfNeeded(raw);
+            reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+        } catch (XMLStreamException | IOException e) {
+            raw.close();
+            throw e;
+        }
+        return StreamSupport.stream(new ArgumentsSpliterator<>(reader, dictionary, factory), false)
+                .onClose(() -> {
+                    try (in) {
+                        reader.close();
+                    } catch (XMLStreamException | IOException e) {
+                        throw new IllegalStateException("Failed to close arguments reader", e);
+                    }
+                });
+    }
+
+    private static InputStream decompressIfNeeded(InputStream raw) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(raw);
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        if (magic == GZIPInputStream.GZIP_MAGIC) {
+            return new GZIPInputStream(in);
+        }
+        return in;
+    }
+
+    @FunctionalInterface
+    private interface RecordFactory<T> {
+        T create(int nr, String method, String query, String encoding, String body, String accept, String expected, String actual);
+    }
+
+    private static class ArgumentsSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private static final String EXPECTED_PREFIX = "expected: ";
+
+        private final XMLStreamReader reader;
+        private final ArgumentsDictionary dictionary;
+        private final RecordFactory<T> factory;
+        private final StringBuilder sb = new StringBuilder();
+        private int nr = -1;
+        private String method = "";
+        private String query = "";
+        private String encoding = "";
+        private String body = "";
+        private String accept = "";
+        private String expected = "";
+        private String actual = "";
+
+        ArgumentsSpliterator(XMLStreamReader reader, ArgumentsDictionary dictionary, RecordFactory<T> factory) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL | IMMUTABLE);
+            this.reader = reader;
+            this.dictionary = dictionary;
+            this.factory = factory;
+        }
+
+        private String text() {
+            return dictionary == null ? sb.toString() : dictionary.canonicalize(sb.toString());
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
             try {
-                reader = xmlInputFactory.createXMLEventReader(in);
                 while (reader.hasNext()) {
-                    XMLEvent nextEvent = reader.nextEvent();
-                    if (nextEvent.isStartElement()) {
-                        sb.setLength(0);
-                    } else if (nextEvent.isCharacters()) {
-                        sb.append(nextEvent.asCharacters().getData());
-                    } else if (nextEvent.isEndElement()) {
-                        switch (nextEvent.asEndElement().getName().getLocalPart()) {
-                            case "nr" -> nr = Integer.parseInt(sb.toString());
-                            case "method" -> method = sb.toString();
-                            case "query" -> query = sb.toString();
-                            case "encoding" -> encoding = sb.toString();
-                            case "body" -> body = sb.toString();
-                            case "accept" -> accept = sb.toString();
-                            case "actual" -> actual = sb.toString();
-                            case "arguments" -> arguments.add(Arguments.of(nr, method, query, encoding, body, accept, actual));
+                    switch (reader.next()) {
+                        case START_ELEMENT -> {
+                            sb.setLength(0);
+                            if (reader.getLocalName().equals("arguments")) {
+                                // the expected comment is optional, so it must not carry over from the previous record
+                                expected = "";
+                            }
+                        }
+                        case CHARACTERS, CDATA, SPACE ->
+                                sb.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        case COMMENT -> {
+                            String comment = reader.getText();
+                            if (comment.startsWith(EXPECTED_PREFIX)) {
+                                expected = comment.substring(EXPECTED_PREFIX.length());
+                            }
+                        }
+                        case END_ELEMENT -> {
+                            switch (reader.getLocalName()) {
+                                case "nr" -> nr = Integer.parseInt(sb, 0, sb.length(), 10);
+                                case "method" -> method = text();
+                                case "query" -> query = text();
+                                case "encoding" -> encoding = text();
+                                case "body" -> body = text();
+                                case "accept" -> accept = text();
+                                case "actual" -> actual = text();
+                                case "arguments" -> {
+                                    action.accept(factory.create(nr, method, query, encoding, body, accept, expected, actual));
+                                    return true;
+                                }
+                            }
                         }
                     }
                 }
-            } finally {
-                if (reader != null) {
-                    reader.close();
-                }
+                return false;
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("Failed to read arguments", e);
             }
         }
-        return arguments;
     }
 
     public void writeStart() throws Exception {
         lock.lock();
         try {
-            bufferedWriter = Files.newBufferedWriter(Path.of(name), StandardCharsets.UTF_8);
+            if (path.getFileName().toString().endsWith(".gz")) {
+                // sync flush, so every flushed record can be decompressed even when the run is interrupted
+                OutputStream out = new GZIPOutputStream(Files.newOutputStream(path), true);
+                bufferedWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            } else if (checkpoint) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                bufferedWriter = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            } else {
+                bufferedWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            }
             xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(bufferedWriter);
             xmlStreamWriter.writeStartDocument();
             xmlStreamWriter.writeCharacters("\n");
@@ -83,51 +316,99 @@ public class ArgumentsXmlDocument implements AutoCloseable {
     }
 
     public void writeArguments(int nr, String method, String query, String encoding, String body, String accept, String expected, String actual) throws Exception {
+        writeArguments(List.of(new ArgumentsRecord(nr, method, query, encoding, body, accept, expected, actual)));
+    }
+
+    /**
+     * Writes all records and flushes once.
+     */
+    void writeArguments(List<ArgumentsRecord> records) throws Exception {
         lock.lock();
         try {
-            xmlStreamWriter.writeCharacters("\n  ");
-            xmlStreamWriter.writeStartElement("arguments");
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("nr");
-            xmlStreamWriter.writeCharacters(String.valueOf(nr));
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("method");
-            xmlStreamWriter.writeCharacters(method);
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("query");
-            xmlStreamWriter.writeCharacters(query);
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("encoding");
-            xmlStreamWriter.writeCharacters(encoding);
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("body");
-            xmlStreamWriter.writeCharacters(body);
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("accept");
-            xmlStreamWriter.writeCharacters(accept);
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeComment("expected: " + expected);
-//            xmlStreamWriter.writeStartElement("expected");
-//            xmlStreamWriter.writeCharacters(expected);
-//            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n    ");
-            xmlStreamWriter.writeStartElement("actual");
-            xmlStreamWriter.writeCharacters(actual);
-            xmlStreamWriter.writeEndElement();
-            xmlStreamWriter.writeCharacters("\n  ");
-            xmlStreamWriter.writeEndElement();
+            for (ArgumentsRecord record : records) {
+                writeRecord(record);
+                written.set(record.nr());
+                if (!record.expected().equals(record.actual())) {
+                    failures.set(record.nr());
+                }
+            }
             xmlStreamWriter.flush();
+            if (checkpoint) {
+                writeCheckpoint();
+            }
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * The nrs of the records written so far whose actual value differs from the expected one.
+     */
+    public BitSet getFailedNrs() {
+        lock.lock();
+        try {
+            return (BitSet) failures.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the wall time of a case, written to {@code <path>.timings} at the end.
+     */
+    public void writeDuration(int nr, long nanos) {
+        durations.put(nr, nanos);
+    }
+
+    private void writeCheckpoint() throws IOException {
+        bufferedWriter.flush();
+        channel.force(false);
+        Path checkpointFile = Path.of(path + CHECKPOINT_SUFFIX);
+        Path temporary = Path.of(path + CHECKPOINT_SUFFIX + ".tmp");
+        Files.writeString(temporary, String.valueOf(channel.position()), StandardCharsets.US_ASCII);
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeRecord(ArgumentsRecord record) throws XMLStreamException {
+        xmlStreamWriter.writeCharacters("\n  ");
+        xmlStreamWriter.writeStartElement("arguments");
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("nr");
+        xmlStreamWriter.writeCharacters(String.valueOf(record.nr()));
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("method");
+        xmlStreamWriter.writeCharacters(record.method());
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("query");
+        xmlStreamWriter.writeCharacters(record.query());
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("encoding");
+        xmlStreamWriter.writeCharacters(record.encoding());
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("body");
+        xmlStreamWriter.writeCharacters(record.body());
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("accept");
+        xmlStreamWriter.writeCharacters(record.accept());
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeComment("expected: " + record.expected());
+//        xmlStreamWriter.writeStartElement("expected");
+//        xmlStreamWriter.writeCharacters(record.expected());
+//        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n    ");
+        xmlStreamWriter.writeStartElement("actual");
+        xmlStreamWriter.writeCharacters(record.actual());
+        xmlStreamWriter.writeEndElement();
+        xmlStreamWriter.writeCharacters("\n  ");
+        xmlStreamWriter.writeEndElement();
+    }
+
     public void writeEnd() throws Exception {
         lock.lock();
         try {
@@ -139,6 +420,12 @@ public class ArgumentsXmlDocument implements AutoCloseable {
             xmlStreamWriter.close();
             bufferedWriter.flush();
             bufferedWriter.close();
+            if (!durations.isEmpty()) {
+                CaseTimings.write(CaseTimings.pathOf(path), durations);
+            }
+            if (checkpoint) {
+                Files.deleteIfExists(Path.of(path + CHECKPOINT_SUFFIX));
+            }
         } finally {
             lock.unlock();
         }
@@ -0,0 +1,69 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Compares the per-case overhead of the synchronous and asynchronous writers with concurrent producers.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class ArgumentsXmlDocumentBenchmark {
+
+    private static final int CASES = 100_000;
+    private static final String ACTUAL = "Parameters: \n  'a': ['b']\n  'p1': ['v1']";
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest(name = "{0} producers")
+    @ValueSource(ints = {8, 16, 32})
+    void writeArguments(int producers) throws Exception {
+        // warm up both writers before measuring
+        measure(new ArgumentsXmlDocument(tempDir.resolve("warmup-sync.xml")), producers);
+        measure(new AsyncArgumentsXmlDocument(tempDir.resolve("warmup-async.xml"), 256, Duration.ofMillis(100), false), producers);
+
+        long sync = measure(new ArgumentsXmlDocument(tempDir.resolve("sync.xml")), producers);
+        long async = measure(new AsyncArgumentsXmlDocument(tempDir.resolve("async.xml"), 256, Duration.ofMillis(100), false), producers);
+        long asyncOrdered = measure(new AsyncArgumentsXmlDocument(tempDir.resolve("async-ordered.xml"), 256, Duration.ofMillis(100), true), producers);
+        System.out.printf("%2d producers: sync %,6d ns/case, async %,6d ns/case, async ordered %,6d ns/case%n",
+                producers, sync / CASES, async / CASES, asyncOrdered / CASES);
+    }
+
+    private static long measure(ArgumentsXmlDocument output, int producers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            output.writeStart();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int nr = producer; nr < CASES; nr += producers) {
+                        output.writeArguments(nr, "POST", "?a=b", "application/x-www-form-urlencoded", "oneParameter", "text/html", ACTUAL, ACTUAL);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            output.close();
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ArgumentsXmlDocumentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldStreamArguments() throws Exception {
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            assertThat(arguments.count(), is(2912L));
+        }
+    }
+
+    @Test
+    void shouldReturnFirstArgumentsWithoutReadingTheWholeDocument() throws Exception {
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            Object[] first = arguments.findFirst().orElseThrow().get();
+            assertThat(first, is(new Object[]{0, "GET", "", "application/x-www-form-urlencoded", "empty", "text/html", "Parameters: "}));
+        }
+    }
+
+    @Test
+    void shouldShareCanonicalValues() throws Exception {
+        ArgumentsDictionary dictionary = new ArgumentsDictionary();
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml", dictionary)) {
+            List<Object[]> values = arguments.map(Arguments::get).toList();
+            assertThat(values.get(0)[1], is(sameInstance(values.get(1)[1])));
+            assertThat(values.get(0)[6], is(sameInstance(values.get(1)[6])));
+        }
+        assertThat(dictionary.size(), is(lessThan(500)));
+        assertThat(dictionary.savedBytes(), is(greaterThan(0L)));
+    }
+
+    @Test
+    void shouldWriteAndReadCompressedDocument() throws Exception {
+        final List<Arguments> arguments = ArgumentsXmlDocument.readArguments("/OutputFromFirefox2.xml");
+        Path compressed = tempDir.resolve("output.xml.gz");
+
+        try (ArgumentsXmlDocument output = new ArgumentsXmlDocument(compressed)) {
+            output.writeStart();
+            for (Arguments argument : arguments) {
+                Object[] values = argument.get();
+                output.writeArguments((int) values[0], (String) values[1], (String) values[2], (String) values[3],
+                        (String) values[4], (String) values[5], "???Unknown???", (String) values[6]);
+            }
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+            assertThat(new String(in.readNBytes(5)), is("<?xml"));
+        }
+        try (Stream<Arguments> actual = ArgumentsXmlDocument.streamArguments(compressed)) {
+            assertThat(actual.map(it -> List.of(it.get())).toList(), is(arguments.stream().map(it -> List.of(it.get())).toList()));
+        }
+    }
+
+    @Test
+    void shouldNotCarryExpectedOverToTheNextRecord() throws Exception {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <root>
+                  <arguments><nr>0</nr><method>GET</method><query></query><encoding>empty</encoding><body></body><accept>text/html</accept><!--expected: first--><actual>a</actual></arguments>
+                  <arguments><nr>1</nr><method>GET</method><query></query><encoding>empty</encoding><body></body><accept>text/html</accept><actual>b</actual></arguments>
+                </root>
+                """;
+        try (Stream<ArgumentsRecord> records = ArgumentsXmlDocument.streamRecords(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))) {
+            assertThat(records.map(ArgumentsRecord::expected).toList(), is(List.of("first", "")));
+        }
+    }
+
+    @Test
+    void shouldResumeFromCheckpoint() throws Exception {
+        Path interrupted = tempDir.resolve("output-interrupted.xml");
+        ArgumentsXmlDocument output = new ArgumentsXmlDocument(interrupted, true);
+        output.writeStart();
+        for (int nr = 0; nr < 5; nr++) {
+            output.writeArguments(nr, "GET", "?a=b", "text/plain", "empty", "text/html", "expected " + nr, "actual " + nr);
+        }
+        // the run is killed while writing the next record
+        Files.writeString(interrupted, "\n  <arguments>\n    <nr>5</n", StandardOpenOption.APPEND);
+
+        Path checkpoint = ArgumentsXmlDocument.findCheckpoint(tempDir).orElseThrow();
+        try (ArgumentsXmlDocument resumed = ArgumentsXmlDocument.resume(checkpoint)) {
+            assertThat(resumed.getWrittenNrs().cardinality(), is(5));
+            resumed.writeArguments(5, "GET", "?a=b", "text/plain", "empty", "text/html", "expected 5", "actual 5");
+        }
+
+        Path uninterrupted = tempDir.resolve("uninterrupted.xml");
+        try (ArgumentsXmlDocument reference = new ArgumentsXmlDocument(uninterrupted)) {
+            reference.writeStart();
+            for (int nr = 0; nr < 6; nr++) {
+                reference.writeArguments(nr, "GET", "?a=b", "text/plain", "empty", "text/html", "expected " + nr, "actual " + nr);
+            }
+        }
+        assertThat(Files.mismatch(interrupted, uninterrupted), is(-1L));
+        assertThat(Files.exists(checkpoint), is(false));
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.example.testcasehtmlunit;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the records to a lock-free queue that is drained by a single background thread.
+ * <p>
+ * The background thread writes the records in batches and only flushes when {@code batchSize} records are pending
+ * or {@code flushInterval} has passed. {@link #close()} drains everything before ending the document.
+ * When {@code ordered} is set, the records are kept until {@link #close()} and then written ordered by {@code nr}.
+ * <p>
+ * Closing takes no lock either: a writer checks {@code closed} again after enqueueing and takes its record back
+ * when it's still queued, the background thread polls the queue once more after it saw {@code closed}.
+ */
+public class AsyncArgumentsXmlDocument extends ArgumentsXmlDocument {
+
+    private final ConcurrentLinkedQueue<ArgumentsRecord> queue = new ConcurrentLinkedQueue<>();
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean ordered;
+    private Thread drainer;
+    private volatile boolean closed;
+    // set while the background thread parks, so the writers only unpark a parked thread
+    private volatile boolean parked;
+    private volatile Exception failure;
+
+    public AsyncArgumentsXmlDocument() {
+        this(256, Duration.ofMillis(100), false);
+    }
+
+    public AsyncArgumentsXmlDocument(int batchSize, Duration flushInterval, boolean ordered) {
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.ordered = ordered;
+    }
+
+    public AsyncArgumentsXmlDocument(Path path, int batchSize, Duration flushInterval, boolean ordered) {
+        super(path);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.ordered = ordered;
+    }
+
+    @Override
+    public void writeStart() throws Exception {
+        super.writeStart();
+        drainer = new Thread(this::drain, "arguments-xml-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void writeArguments(int nr, String method, String query, String encoding, String body, String accept, String expected, String actual) throws Exception {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IllegalStateException("Document is closed");
+        }
+        ArgumentsRecord record = new ArgumentsRecord(nr, method, query, encoding, body, accept, expected, actual);
+        queue.offer(record);
+        // the background thread may have done its last poll already, a record it didn't take is taken back
+        if (closed && queue.remove(record)) {
+            throw new IllegalStateException("Document is closed");
+        }
+        if (parked) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private void drain() {
+        PriorityQueue<ArgumentsRecord> held = new PriorityQueue<>(Comparator.comparingInt(ArgumentsRecord::nr));
+        List<ArgumentsRecord> batch = new ArrayList<>(batchSize);
+        try {
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            while (true) {
+                // every record enqueued before closed was set is polled below
+                boolean done = closed;
+                ArgumentsRecord record;
+                while ((record = queue.poll()) != null) {
+                    if (ordered) {
+                        held.add(record);
+                    } else {
+                        batch.add(record);
+                        if (batch.size() >= batchSize) {
+                            writeArguments(batch);
+                            batch.clear();
+                        }
+                    }
+                }
+                long now = System.nanoTime();
+                if (!batch.isEmpty() && (done || now >= deadline)) {
+                    writeArguments(batch);
+                    batch.clear();
+                }
+                if (done) {
+                    break;
+                }
+                if (now >= deadline) {
+                    deadline = now + flushIntervalNanos;
+                }
+                parked = true;
+                // a writer that enqueued before parked was set is seen here, any later one unparks
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, deadline - now);
+                }
+                parked = false;
+            }
+            while (!held.isEmpty()) {
+                while (batch.size() < batchSize && !held.isEmpty()) {
+                    batch.add(held.poll());
+                }
+                writeArguments(batch);
+                batch.clear();
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Ends the document even when the background thread failed, the failure is thrown afterwards.
+     */
+    @Override
+    public void writeEnd() throws Exception {
+        closed = true;
+        try {
+            if (drainer != null) {
+                LockSupport.unpark(drainer);
+                drainer.join();
+            }
+        } finally {
+            Exception drainFailure = failure;
+            try {
+                super.writeEnd();
+            } catch (Exception e) {
+                if (drainFailure == null) {
+                    throw e;
+                }
+                drainFailure.addSuppressed(e);
+            }
+            if (drainFailure != null) {
+                throw drainFailure;
+            }
+        }
+    }
+}
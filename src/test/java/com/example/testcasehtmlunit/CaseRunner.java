@@ -0,0 +1,89 @@
+package com.example.testcasehtmlunit;
+
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs every case as a subtask with its own deadline, so a hung XHR or a stuck driver can't hold up the matrix.
+ * <p>
+ * When a case misses its deadline, the subtask is cancelled, the driver is quit in the background and replaced
+ * by a new one from the factory, and the case results in {@code Timeout after <n> ms}, which is written
+ * to the output like any other result. The deadline is {@value #TIMEOUT_PROPERTY} milliseconds, 30 seconds by default.
+ * <p>
+ * A runner belongs to one worker thread. Java 17 has no structured concurrency yet, the subtask runs on a thread
+ * of the runner instead, which is abandoned together with the driver on a timeout.
+ */
+public class CaseRunner implements AutoCloseable {
+
+    public static final String TIMEOUT_PROPERTY = "testcasehtmlunit.case.timeout";
+    public static final String TIMEOUT_RESULT_PREFIX = "Timeout after ";
+
+    private final Supplier<WebDriver> driverFactory;
+    private final Duration timeout;
+    private WebDriver driver;
+    private ExecutorService executor;
+
+    public CaseRunner(Supplier<WebDriver> driverFactory) {
+        this(driverFactory, Duration.ofMillis(Long.getLong(TIMEOUT_PROPERTY, 30_000)));
+    }
+
+    public CaseRunner(Supplier<WebDriver> driverFactory, Duration timeout) {
+        this.driverFactory = driverFactory;
+        this.timeout = timeout;
+        this.driver = driverFactory.get();
+        this.executor = newExecutor();
+    }
+
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * The result of the case, or the timeout result when the case missed its deadline.
+     */
+    public String run(Function<WebDriver, String> subtask) throws Exception {
+        WebDriver current = driver;
+        Future<String> future = executor.submit(() -> subtask.apply(current));
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            recycle();
+            return TIMEOUT_RESULT_PREFIX + timeout.toMillis() + " ms";
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void recycle() {
+        WebDriver stuck = driver;
+        executor.shutdownNow();
+        // quitting a stuck driver may block as well
+        Thread quitter = new Thread(stuck::quit, "quit-stuck-driver");
+        quitter.setDaemon(true);
+        quitter.start();
+        driver = driverFactory.get();
+        executor = newExecutor();
+    }
+
+    private static ExecutorService newExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "case-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        driver.quit();
+    }
+}
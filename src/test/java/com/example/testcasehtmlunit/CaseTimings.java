@@ -0,0 +1,159 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Wall time of every case of a run, written next to the output file as {@code <output>.timings},
+ * one line {@code <nr> <nanoseconds>} per case.
+ * <p>
+ * With the {@value #SCHEDULE_PROPERTY} system property set to {@code lpt} the next run starts the longest cases first,
+ * so the workers of a parallel run finish at about the same time, and forks get cases of about the same total time.
+ * Cases without a timing in the latest run are estimated with a static cost model: a multipart request uploads the file
+ * and a HEAD request may need a second request for {@code /previousParameters}, both cost more than a plain request.
+ */
+public final class CaseTimings {
+
+    public static final String SCHEDULE_PROPERTY = "testcasehtmlunit.schedule";
+    public static final String SUFFIX = ".timings";
+
+    private CaseTimings() {
+    }
+
+    public static Path pathOf(Path output) {
+        return Path.of(output + SUFFIX);
+    }
+
+    public static void write(Path timings, SortedMap<Integer, Long> durations) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(timings, StandardCharsets.US_ASCII)) {
+            for (Map.Entry<Integer, Long> entry : durations.entrySet()) {
+                writer.write(entry.getKey() + " " + entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    public static SortedMap<Integer, Long> read(Path timings) throws IOException {
+        SortedMap<Integer, Long> durations = new TreeMap<>();
+        for (String line : Files.readAllLines(timings, StandardCharsets.US_ASCII)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            durations.put(Integer.parseInt(line.substring(0, space).strip()), Long.parseLong(line.substring(space + 1).strip()));
+        }
+        return durations;
+    }
+
+    /**
+     * The timings of the most recently written output file in the directory.
+     */
+    public static Optional<Path> latest(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(it -> it.getFileName().toString().startsWith("output-") && it.getFileName().toString().endsWith(SUFFIX))
+                    .max(Comparator.comparing(it -> it.toFile().lastModified()));
+        }
+    }
+
+    public static boolean isScheduled() {
+        return "lpt".equals(System.getProperty(SCHEDULE_PROPERTY, ""));
+    }
+
+    /**
+     * Orders the cases longest first when the {@value #SCHEDULE_PROPERTY} system property is {@code lpt},
+     * using the latest timings in the working directory.
+     */
+    public static Stream<Arguments> schedule(Stream<Arguments> arguments) throws IOException {
+        String mode = System.getProperty(SCHEDULE_PROPERTY, "");
+        if (mode.isEmpty()) {
+            return arguments;
+        }
+        if (!isScheduled()) {
+            throw new IllegalArgumentException("Unknown " + SCHEDULE_PROPERTY + ": " + mode);
+        }
+        final List<Arguments> cases;
+        try (arguments) {
+            cases = arguments.toList();
+        }
+        return longestFirst(cases, costs(latestTimings(), cases)).stream();
+    }
+
+    /**
+     * Assigns every case to one of the bins, longest first to the bin with the least total cost so far.
+     * The assignment only depends on the cases and the costs, so every fork computes the same.
+     */
+    public static List<List<Arguments>> assign(List<Arguments> cases, int bins, ToDoubleFunction<Object[]> cost) {
+        List<List<Arguments>> assigned = new ArrayList<>();
+        double[] loads = new double[bins];
+        for (int bin = 0; bin < bins; bin++) {
+            assigned.add(new ArrayList<>());
+        }
+        for (Arguments arguments : longestFirst(cases, cost)) {
+            int least = 0;
+            for (int bin = 1; bin < bins; bin++) {
+                if (loads[bin] < loads[least]) {
+                    least = bin;
+                }
+            }
+            assigned.get(least).add(arguments);
+            loads[least] += cost.applyAsDouble(arguments.get());
+        }
+        return assigned;
+    }
+
+    public static SortedMap<Integer, Long> latestTimings() throws IOException {
+        Optional<Path> timings = latest(Path.of(""));
+        return timings.isPresent() ? read(timings.get()) : new TreeMap<>();
+    }
+
+    /**
+     * The measured cost of every case, the cost model scaled to the measured costs for the others.
+     */
+    public static ToDoubleFunction<Object[]> costs(Map<Integer, Long> timings, List<Arguments> cases) {
+        double measured = 0;
+        double modelled = 0;
+        for (Arguments arguments : cases) {
+            Long duration = timings.get((Integer) arguments.get()[0]);
+            if (duration != null) {
+                measured += duration;
+                modelled += modelCost(arguments.get());
+            }
+        }
+        double scale = modelled == 0 ? 1 : measured / modelled;
+        return values -> {
+            Long duration = timings.get((Integer) values[0]);
+            return duration != null ? duration : modelCost(values) * scale;
+        };
+    }
+
+    /**
+     * The relative cost of a case without any timing.
+     */
+    static double modelCost(Object[] values) {
+        String method = (String) values[1];
+        String encoding = (String) values[3];
+        if (method.equals("HEAD")) {
+            return 2;
+        }
+        if (!method.equals("GET") && encoding.equals("multipart/form-data")) {
+            return 3;
+        }
+        return 1;
+    }
+
+    private static List<Arguments> longestFirst(List<Arguments> cases, ToDoubleFunction<Object[]> cost) {
+        List<Arguments> sorted = new ArrayList<>(cases);
+        sorted.sort(Comparator.<Arguments>comparingDouble(it -> -cost.applyAsDouble(it.get()))
+                .thenComparingInt(it -> (int) it.get()[0]));
+        return sorted;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CaseTimingsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadWrittenTimings() throws Exception {
+        SortedMap<Integer, Long> durations = new TreeMap<>(Map.of(3, 1_500_000L, 40, 2_000L));
+        Path timings = CaseTimings.pathOf(tempDir.resolve("output-test.xml"));
+
+        CaseTimings.write(timings, durations);
+
+        assertThat(CaseTimings.read(timings), is(durations));
+        assertThat(CaseTimings.latest(tempDir).orElseThrow(), is(timings));
+    }
+
+    @Test
+    void shouldFallBackToCostModel() {
+        List<Arguments> cases = List.of(
+                Arguments.of(0, "GET", "", "multipart/form-data", "empty", "text/html", "", ""),
+                Arguments.of(1, "POST", "", "multipart/form-data", "empty", "text/html", "", ""),
+                Arguments.of(2, "HEAD", "", "text/plain", "empty", "text/html", "", ""));
+
+        ToDoubleFunction<Object[]> costs = CaseTimings.costs(Map.of(), cases);
+
+        List<List<Arguments>> assigned = CaseTimings.assign(cases, 1, costs);
+        assertThat(assigned.get(0).stream().map(it -> (int) it.get()[0]).toList(), contains(1, 2, 0));
+    }
+
+    @Test
+    void shouldBalanceLongestFirst() {
+        List<Arguments> cases = List.of(
+                Arguments.of(0, "GET", "", "text/plain", "empty", "text/html", "", ""),
+                Arguments.of(1, "GET", "", "text/plain", "empty", "text/html", "", ""),
+                Arguments.of(2, "GET", "", "text/plain", "empty", "text/html", "", ""),
+                Arguments.of(3, "GET", "", "text/plain", "empty", "text/html", "", ""),
+                Arguments.of(4, "GET", "", "text/plain", "empty", "text/html", "", ""));
+        Map<Integer, Long> timings = Map.of(0, 7L, 1, 5L, 2, 4L, 3, 3L);
+
+        List<List<Arguments>> assigned = CaseTimings.assign(cases, 2, CaseTimings.costs(timings, cases));
+
+        // case 4 has no timing and is estimated at the mean of the others
+        assertThat(assigned.get(0).stream().map(it -> (int) it.get()[0]).toList(), contains(0, 2));
+        assertThat(assigned.get(1).stream().map(it -> (int) it.get()[0]).toList(), contains(1, 4, 3));
+    }
+
+}
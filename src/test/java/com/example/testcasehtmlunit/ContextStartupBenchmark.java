@@ -0,0 +1,59 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.TestContextManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the startup of the {@link InspectWebTest} context with the full {@code @SpringBootTest} context
+ * the HtmlUnit suites used before. Every round starts a new context, the first rounds warm up.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class ContextStartupBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    @Test
+    void startup() throws Exception {
+        for (Class<?> testClass : new Class<?>[]{FullContext.class, SlimContext.class}) {
+            long total = 0;
+            long min = Long.MAX_VALUE;
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                long elapsed = start(testClass);
+                if (round >= WARMUP_ROUNDS) {
+                    total += elapsed;
+                    min = Math.min(min, elapsed);
+                }
+            }
+            System.out.printf("%s: %,d ms mean, %,d ms min%n",
+                    testClass.getSimpleName(), TimeUnit.NANOSECONDS.toMillis(total / ROUNDS), TimeUnit.NANOSECONDS.toMillis(min));
+        }
+    }
+
+    private static long start(Class<?> testClass) throws Exception {
+        TestContext testContext = new TestContextManager(testClass).getTestContext();
+        long begin = System.nanoTime();
+        testContext.getApplicationContext();
+        long elapsed = System.nanoTime() - begin;
+        // closes the context and removes it from the context cache, so the next round starts a new one
+        testContext.markApplicationContextDirty(DirtiesContext.HierarchyMode.EXHAUSTIVE);
+        return elapsed;
+    }
+
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    static class FullContext {
+    }
+
+    @InspectWebTest
+    static class SlimContext {
+    }
+}
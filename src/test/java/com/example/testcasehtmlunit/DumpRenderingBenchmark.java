@@ -0,0 +1,83 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.testcasehtmlunit.TemplateRenderingBenchmark.measure;
+
+/**
+ * Compares the dump of {@code /bounce} built as a string, encoded like the {@code StringHttpMessageConverter} does,
+ * as {@code /bounce} did before, with the {@link ParameterDumpWriter}, both down to the bytes of the response. Measures time and allocated bytes
+ * per request for parameter maps of growing size.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class DumpRenderingBenchmark {
+
+    private static final int[] KEYS = {10, 100, 500};
+    private static final int VALUE_LENGTH = 200;
+
+    // the response stream of the container copies into a buffer of its own, and stays open for the next request here
+    private static final OutputStream RESPONSE = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole += len;
+        }
+    };
+
+    private static long blackhole;
+
+    @Test
+    void render() throws Exception {
+        for (int keys : KEYS) {
+            Map<String, String[]> parameters = parameters(keys);
+            int iterations = 2_000_000 / keys;
+            System.out.printf("%d keys, %,d bytes per dump%n", keys, stringDump(parameters).getBytes(StandardCharsets.UTF_8).length);
+            measure("String dump", iterations / 5, iterations, () -> {
+                byte[] bytes = stringDump(parameters).getBytes(StandardCharsets.UTF_8);
+                RESPONSE.write(bytes);
+                blackhole += bytes.length;
+            });
+            measure("ParameterDumpWriter", iterations / 5, iterations, () -> ParameterDumpWriter.write(parameters, null, length -> {
+                blackhole += length;
+                return RESPONSE;
+            }));
+        }
+        System.out.println("(" + blackhole + ")");
+    }
+
+    private static String stringDump(Map<String, String[]> parameterMap) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Parameters: \n");
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            sb.append("  '").append(entry.getKey()).append("': [");
+            String[] values = entry.getValue();
+            for (int i = 0; i < values.length; i++) {
+                if (i != 0) {
+                    sb.append(", ");
+                }
+                sb.append("'").append(values[i]).append("'");
+            }
+            sb.append("]\n");
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, String[]> parameters(int keys) {
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < keys; i++) {
+            String value = ("value " + i + " \u00e4\u00f6\u00fc ").repeat(VALUE_LENGTH / 16);
+            parameters.put("parameter" + i, i % 3 == 0 ? new String[]{value, value.toUpperCase()} : new String[]{value});
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of the failing {@code nr}s of a run, written next to the output file as {@code <output>.failures}.
+ * <p>
+ * The index holds one range of consecutive failing {@code nr}s per line, e.g. {@code 1572-1575} or {@code 40}.
+ * Only the inspect matrix writes an index, {@link #writeLatest(Path, BitSet)} also records its output as the latest run.
+ * Set the {@value #RERUN_PROPERTY} system property to {@code failures} to run only the cases that failed in the latest run,
+ * or to {@code failures-first} to run those before the remaining cases.
+ */
+public final class FailureIndex {
+
+    public static final String RERUN_PROPERTY = "testcasehtmlunit.rerun";
+    public static final String SUFFIX = ".failures";
+
+    // holds the path of the output of the latest run of the inspect matrix
+    private static final Path LATEST_OUTPUT = Path.of("build", "latest-inspect-output");
+
+    private FailureIndex() {
+    }
+
+    public static Path pathOf(Path output) {
+        return Path.of(output + SUFFIX);
+    }
+
+    public static void write(Path index, BitSet failures) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(index, StandardCharsets.US_ASCII)) {
+            for (int from = failures.nextSetBit(0); from >= 0; from = failures.nextSetBit(from)) {
+                int to = failures.nextClearBit(from);
+                writer.write(to - from == 1 ? String.valueOf(from) : from + "-" + (to - 1));
+                writer.newLine();
+                from = to;
+            }
+        }
+    }
+
+    public static BitSet read(Path index) throws IOException {
+        BitSet failures = new BitSet();
+        for (String line : Files.readAllLines(index, StandardCharsets.US_ASCII)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int dash = line.indexOf('-');
+            if (dash < 0) {
+                failures.set(Integer.parseInt(line.strip()));
+            } else {
+                failures.set(Integer.parseInt(line.substring(0, dash).strip()), Integer.parseInt(line.substring(dash + 1).strip()) + 1);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Writes the index of the output and records the output as the latest run of the inspect matrix.
+     */
+    public static void writeLatest(Path output, BitSet failures) throws IOException {
+        write(pathOf(output), failures);
+        Files.createDirectories(LATEST_OUTPUT.getParent());
+        Files.writeString(LATEST_OUTPUT, output.toAbsolutePath().toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The index of the output of the latest run of the inspect matrix.
+     */
+    public static Optional<Path> latest() throws IOException {
+        if (!Files.exists(LATEST_OUTPUT)) {
+            return Optional.empty();
+        }
+        Path index = pathOf(Path.of(Files.readString(LATEST_OUTPUT, StandardCharsets.UTF_8).strip()));
+        return Files.exists(index) ? Optional.of(index) : Optional.empty();
+    }
+
+    /**
+     * Applies the rerun mode of the {@value #RERUN_PROPERTY} system property to the cases, using the index
+     * of the latest run of the inspect matrix. Without a mode the cases are returned as is, without an index
+     * or without any failure all cases are run.
+     */
+    public static Stream<Arguments> rerun(Stream<Arguments> arguments) throws IOException {
+        String mode = System.getProperty(RERUN_PROPERTY, "");
+        if (mode.isEmpty()) {
+            return arguments;
+        }
+        if (!mode.equals("failures") && !mode.equals("failures-first")) {
+            throw new IllegalArgumentException("Unknown " + RERUN_PROPERTY + ": " + mode);
+        }
+        Optional<Path> index = latest();
+        if (index.isEmpty()) {
+            System.out.println("No failure index of a previous run found, running all cases");
+            return arguments;
+        }
+        BitSet failures = read(index.get());
+        if (failures.isEmpty()) {
+            System.out.println("No failures in " + index.get() + ", running all cases");
+            return arguments;
+        }
+        System.out.println("Rerunning " + failures.cardinality() + " failures of " + index.get() + (mode.equals("failures") ? "" : " first"));
+        return switch (mode) {
+            case "failures" -> arguments.filter(it -> failures.get((int) it.get()[0]));
+            case "failures-first" -> {
+                final Map<Boolean, List<Arguments>> partitioned;
+                try (arguments) {
+                    partitioned = arguments.collect(Collectors.partitioningBy(it -> failures.get((int) it.get()[0])));
+                }
+                yield Stream.concat(partitioned.get(true).stream(), partitioned.get(false).stream());
+            }
+            default -> throw new IllegalArgumentException("Unknown " + RERUN_PROPERTY + ": " + mode);
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Splits the matrix across forked test JVMs: the fork with the {@value #INDEX_PROPERTY} system property {@code index}
+ * out of {@value #COUNT_PROPERTY} forks runs the cases with {@code nr % count == index} and writes them to a partial file
+ * in {@code build/shards}. {@link #main(String[])} merges the partial files into one {@code output-*.xml} ordered by {@code nr}
+ * and the result caches of the forks into one.
+ * <p>
+ * Run with {@code ./gradlew forkedTest -Pforks=4 --configuration-cache}, so the forks run in parallel.
+ */
+public final class ForkShard {
+
+    public static final String INDEX_PROPERTY = "testcasehtmlunit.fork.index";
+    public static final String COUNT_PROPERTY = "testcasehtmlunit.fork.count";
+
+    private static final Path DIRECTORY = Path.of("build", "shards");
+    private static final int MERGE_BATCH_SIZE = 256;
+
+    private ForkShard() {
+    }
+
+    public static boolean isEnabled() {
+        return Integer.getInteger(COUNT_PROPERTY, 1) > 1;
+    }
+
+    public static Path partialPath(int index) {
+        return DIRECTORY.resolve("output-fork-" + index + ".xml");
+    }
+
+    /**
+     * The partial file of this fork, or a new output file when the matrix is not split.
+     */
+    public static Path outputPath() throws IOException {
+        if (!isEnabled()) {
+            return ArgumentsXmlDocument.newPath(Boolean.getBoolean(ArgumentsXmlDocument.COMPRESS_PROPERTY));
+        }
+        Files.createDirectories(DIRECTORY);
+        return partialPath(Integer.getInteger(INDEX_PROPERTY));
+    }
+
+    /**
+     * Keeps only the cases of this fork. When the cases are {@linkplain CaseTimings#isScheduled() scheduled},
+     * they are assigned by their timings instead, so every fork gets about the same total time.
+     */
+    public static Stream<Arguments> filter(Stream<Arguments> arguments) throws IOException {
+        if (!isEnabled()) {
+            return arguments;
+        }
+        int count = Integer.getInteger(COUNT_PROPERTY);
+        int index = Integer.getInteger(INDEX_PROPERTY);
+        if (CaseTimings.isScheduled()) {
+            final List<Arguments> cases;
+            try (arguments) {
+                cases = arguments.toList();
+            }
+            return CaseTimings.assign(cases, count, CaseTimings.costs(CaseTimings.latestTimings(), cases)).get(index).stream();
+        }
+        return arguments.filter(it -> (int) it.get()[0] % count == index);
+    }
+
+    /**
+     * Merges the partial files, each ordered by {@code nr}, into the output, along with their timings and disagreements.
+     */
+    public static void merge(List<Path> partials, ArgumentsXmlDocument output) throws Exception {
+        List<Stream<ArgumentsRecord>> streams = new ArrayList<>();
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparingInt(it -> it.current.nr()));
+        BitSet disagreements = new BitSet();
+        try {
+            for (Path partial : partials) {
+                InputStream in = Files.newInputStream(partial);
+                Stream<ArgumentsRecord> stream = ArgumentsXmlDocument.streamRecords(in).onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                streams.add(stream);
+                Cursor cursor = new Cursor(stream.iterator());
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                Path partialDisagreements = Path.of(partial + InspectRequestSynthesizer.DISAGREEMENTS_SUFFIX);
+                if (Files.exists(partialDisagreements)) {
+                    disagreements.or(FailureIndex.read(partialDisagreements));
+                }
+                Path partialTimings = CaseTimings.pathOf(partial);
+                if (Files.exists(partialTimings)) {
+                    CaseTimings.read(partialTimings).forEach(output::writeDuration);
+                }
+            }
+            output.writeStart();
+            List<ArgumentsRecord> batch = new ArrayList<>(MERGE_BATCH_SIZE);
+            while (!cursors.isEmpty()) {
+                Cursor cursor = cursors.poll();
+                batch.add(cursor.current);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                if (batch.size() == MERGE_BATCH_SIZE) {
+                    output.writeArguments(batch);
+                    batch.clear();
+                }
+            }
+            output.writeArguments(batch);
+            output.close();
+        } finally {
+            streams.forEach(Stream::close);
+        }
+        FailureIndex.write(Path.of(output.getPath() + InspectRequestSynthesizer.DISAGREEMENTS_SUFFIX), disagreements);
+        FailureIndex.writeLatest(output.getPath(), output.getFailedNrs());
+    }
+
+    private static class Cursor {
+
+        private final Iterator<ArgumentsRecord> iterator;
+        private ArgumentsRecord current;
+
+        Cursor(Iterator<ArgumentsRecord> iterator) {
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+            return current != null;
+        }
+    }
+
+    /**
+     * Usage: {@code ForkShard forks}, fails when any merged case failed.
+     */
+    public static void main(String[] args) throws Exception {
+        int forks = Integer.parseInt(args[0]);
+        List<Path> partials = new ArrayList<>();
+        for (int index = 0; index < forks; index++) {
+            if (Files.exists(partialPath(index))) {
+                partials.add(partialPath(index));
+            } else {
+                System.out.println("Fork " + index + " wrote no results");
+            }
+        }
+        ArgumentsXmlDocument output = new ArgumentsXmlDocument();
+        merge(partials, output);
+        // every fork wrote the results it cached to a file of its own
+        ResultCache.mergeForks(ResultCache.DIRECTORY);
+        for (Path partial : partials) {
+            Files.deleteIfExists(CaseTimings.pathOf(partial));
+            Files.deleteIfExists(Path.of(partial + InspectRequestSynthesizer.DISAGREEMENTS_SUFFIX));
+            Files.delete(partial);
+        }
+        BitSet failures = output.getFailedNrs();
+        System.out.println("Merged " + output.getWrittenNrs().cardinality() + " cases of " + partials.size() + " forks into " + output.getPath()
+                + ", " + failures.cardinality() + " failed");
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.testcasehtmlunit;
+
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.util.WebConnectionWrapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+import org.openqa.selenium.WebDriver;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.TestContextManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.htmlunit.webdriver.WebConnectionHtmlUnitDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs the HEAD cases of the matrix with the parameters in the {@value InspectController#PARAMETERS_HEADER} header
+ * and with the parameters in the session only, which costs a second request for {@code /previousParameters}.
+ * Counts the requests that reach the server and measures the time per case, the first round warms up.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class HeadSliceBenchmark {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void headSlice() throws Exception {
+        Path tempFile = tempDir.resolve("example.txt");
+        Files.writeString(tempFile, "Hello world!", StandardCharsets.US_ASCII);
+        final List<Object[]> cases;
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            cases = arguments.map(Arguments::get).filter(it -> "HEAD".equals(it[1])).toList();
+        }
+
+        long[] session = run(SessionContext.class, cases, tempFile);
+        long[] header = run(HeaderContext.class, cases, tempFile);
+        System.out.printf("%d HEAD cases%n", cases.size());
+        System.out.printf("session: %,d requests, %,d us/case%n", session[0], TimeUnit.NANOSECONDS.toMicros(session[1] / cases.size()));
+        System.out.printf("header:  %,d requests, %,d us/case%n", header[0], TimeUnit.NANOSECONDS.toMicros(header[1] / cases.size()));
+        System.out.printf("the header saves %,d requests and %,d us/case%n",
+                session[0] - header[0], TimeUnit.NANOSECONDS.toMicros((session[1] - header[1]) / cases.size()));
+    }
+
+    /**
+     * The requests and the elapsed nanoseconds of the measured round.
+     */
+    private static long[] run(Class<?> testClass, List<Object[]> cases, Path tempFile) throws Exception {
+        TestContext testContext = new TestContextManager(testClass).getTestContext();
+        ApplicationContext context = testContext.getApplicationContext();
+        WebDriver driver = HtmlUnitDriverPool.newDriver(context.getBean(MockMvc.class), context.getBean(Environment.class));
+        try {
+            RequestCounter counter = new RequestCounter(((WebConnectionHtmlUnitDriver) driver).getWebClient());
+            // the form is reused, so the requests of the cases aren't lost among the loads of the form
+            InspectFormPage page = new InspectFormPage(driver, tempFile, true);
+            long[] measured = new long[2];
+            for (int round = 0; round < 2; round++) {
+                counter.requests = 0;
+                int mismatches = 0;
+                long begin = System.nanoTime();
+                for (Object[] values : cases) {
+                    String actual = page.submit((String) values[1], (String) values[2], (String) values[3], (String) values[4], (String) values[5]);
+                    if (!actual.equals(values[6])) {
+                        mismatches++;
+                    }
+                }
+                measured = new long[]{counter.requests, System.nanoTime() - begin};
+                if (mismatches > 0) {
+                    System.out.printf("%s: %d cases differ from the golden master%n", testClass.getSimpleName(), mismatches);
+                }
+            }
+            return measured;
+        } finally {
+            driver.quit();
+            testContext.markApplicationContextDirty(DirtiesContext.HierarchyMode.EXHAUSTIVE);
+        }
+    }
+
+    /**
+     * Counts the requests of the cases, the loads of the form aside.
+     */
+    private static class RequestCounter extends WebConnectionWrapper {
+
+        long requests;
+
+        RequestCounter(WebClient webClient) {
+            super(webClient);
+        }
+
+        @Override
+        public WebResponse getResponse(WebRequest request) throws IOException {
+            if (!request.getUrl().getPath().equals("/form")) {
+                requests++;
+            }
+            return super.getResponse(request);
+        }
+    }
+
+    @InspectWebTest
+    static class HeaderContext {
+    }
+
+    @InspectWebTest
+    @TestPropertySource(properties = InspectController.PARAMETERS_HEADER_LIMIT_PROPERTY + "=0")
+    static class SessionContext {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.testcasehtmlunit;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.openqa.selenium.WebDriver;
+import org.springframework.boot.test.web.htmlunit.webdriver.LocalHostWebConnectionHtmlUnitDriver;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.htmlunit.webdriver.MockMvcHtmlUnitDriverBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@link WebDriver} parameters to a MockMvc-backed HtmlUnit driver of the current thread,
+ * and {@link CaseRunner} parameters to the runner of the current thread, which replaces its driver after a timeout.
+ * <p>
+ * Unlike the autowired driver, which is shared by all tests of a context, every worker thread gets its own driver
+ * and therefore its own cookies and session, so the tests can run concurrently.
+ * The drivers are built like the autowired one and are quit when the test run ends.
+ */
+public class HtmlUnitDriverPool implements ParameterResolver {
+
+    /**
+     * Set this system property to {@code true} to let the web clients cache the form, which is cacheable for an hour.
+     */
+    public static final String CACHE_PROPERTY = "testcasehtmlunit.htmlunit.cache";
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(HtmlUnitDriverPool.class);
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == WebDriver.class
+                || parameterContext.getParameter().getType() == CaseRunner.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(extensionContext);
+        CaseRunner runner = extensionContext.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(applicationContext, Drivers::new, Drivers.class)
+                .get();
+        return parameterContext.getParameter().getType() == CaseRunner.class ? runner : runner.getDriver();
+    }
+
+    public static WebDriver newDriver(MockMvc mockMvc, Environment environment) {
+        return newDriver(mockMvc, environment, Boolean.getBoolean(CACHE_PROPERTY));
+    }
+
+    /**
+     * Without {@code cache} the cache of the web client is turned off, so every load of the form reaches the server.
+     */
+    public static WebDriver newDriver(MockMvc mockMvc, Environment environment, boolean cache) {
+        LocalHostWebConnectionHtmlUnitDriver delegate = new LocalHostWebConnectionHtmlUnitDriver(environment, BrowserVersion.CHROME);
+        if (!cache) {
+            delegate.getWebClient().getCache().setMaxSize(0);
+        }
+        return MockMvcHtmlUnitDriverBuilder.mockMvcSetup(mockMvc)
+                .withDelegate(delegate)
+                .build();
+    }
+
+    private static class Drivers implements ExtensionContext.Store.CloseableResource {
+
+        private final MockMvc mockMvc;
+        private final Environment environment;
+        private final Map<Thread, CaseRunner> runners = new ConcurrentHashMap<>();
+
+        Drivers(ApplicationContext applicationContext) {
+            mockMvc = applicationContext.getBean(MockMvc.class);
+            environment = applicationContext.getEnvironment();
+        }
+
+        CaseRunner get() {
+            return runners.computeIfAbsent(Thread.currentThread(), it -> new CaseRunner(() -> newDriver(mockMvc, environment)));
+        }
+
+        @Override
+        public void close() {
+            runners.values().forEach(CaseRunner::close);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.testcasehtmlunit;
+
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.util.WebConnectionWrapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.htmlunit.webdriver.WebConnectionHtmlUnitDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * Measures how the inspect matrix scales with the number of workers, each with its own driver,
+ * and how much reusing the form, applying the cases with a single script or caching the form saves per case.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@InspectWebTest
+public class InspectController2Benchmark {
+
+    private static final int CASES = 480;
+    private static final int[] WORKERS = {1, 2, 4, 8, 16};
+    private static final int[] BATCH_SIZES = {16, 64};
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    Environment environment;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void speedupCurve() throws Exception {
+        Path tempFile = createTempFile();
+        List<Object[]> cases = cases();
+
+        long baseline = 0;
+        for (int workers : WORKERS) {
+            // warm up, then measure
+            run(cases, workers, tempFile);
+            long elapsed = run(cases, workers, tempFile);
+            if (workers == 1) {
+                baseline = elapsed;
+            }
+            System.out.printf("%2d workers: %,6d ms, %,7.1f cases/s, speedup %.2f%n",
+                    workers, TimeUnit.NANOSECONDS.toMillis(elapsed), cases.size() * 1e9 / elapsed, (double) baseline / elapsed);
+        }
+    }
+
+    @Test
+    void pageReuse() throws Exception {
+        Path tempFile = createTempFile();
+        List<Object[]> cases = cases();
+        WebDriver driver = HtmlUnitDriverPool.newDriver(mockMvc, environment);
+        try {
+            // warm up, then measure
+            runSerially(cases, new InspectFormPage(driver, tempFile, false));
+            runSerially(cases, new InspectFormPage(driver, tempFile, true));
+            long reload = runSerially(cases, new InspectFormPage(driver, tempFile, false));
+            long reuse = runSerially(cases, new InspectFormPage(driver, tempFile, true));
+            System.out.printf("reload: %,d us/case, reuse: %,d us/case, saved %,d us/case%n",
+                    reload / cases.size() / 1000, reuse / cases.size() / 1000, (reload - reuse) / cases.size() / 1000);
+        } finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    void singleScript() throws Exception {
+        Path tempFile = createTempFile();
+        List<List<String>> cases = cases().stream()
+                .map(values -> List.of((String) values[1], (String) values[2], (String) values[3], (String) values[4], (String) values[5]))
+                .toList();
+        WebDriver driver = HtmlUnitDriverPool.newDriver(mockMvc, environment);
+        try {
+            for (int round = 0; round < 2; round++) {
+                // the first round warms up
+                long form = runSerially(cases(), new InspectFormPage(driver, tempFile, false));
+                InspectFormScript script = new InspectFormScript(driver, tempFile, 0);
+                long single = System.nanoTime();
+                cases.forEach(values -> script.submitAll(List.of(values)));
+                single = System.nanoTime() - single;
+                if (round == 1) {
+                    System.out.printf("form: %,d us/case%n", form / cases.size() / 1000);
+                    System.out.printf("script, 1 case per call: %,d us/case%n", single / cases.size() / 1000);
+                }
+                for (int batchSize : BATCH_SIZES) {
+                    long batched = System.nanoTime();
+                    for (int from = 0; from < cases.size(); from += batchSize) {
+                        script.submitAll(cases.subList(from, Math.min(from + batchSize, cases.size())));
+                    }
+                    batched = System.nanoTime() - batched;
+                    if (round == 1) {
+                        System.out.printf("script, %d cases per call: %,d us/case%n", batchSize, batched / cases.size() / 1000);
+                    }
+                }
+            }
+        } finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    void formCache() throws Exception {
+        Path tempFile = createTempFile();
+        final List<Object[]> matrix;
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            matrix = arguments
+                    .filter(not(it -> "TRACE".equals(it.get()[1]) && "text/plain".equals(it.get()[3])))
+                    .map(Arguments::get)
+                    .toList();
+        }
+        long[] elapsed = new long[2];
+        long[][] formLoads = new long[2][];
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up
+            for (boolean cache : new boolean[]{false, true}) {
+                WebDriver driver = HtmlUnitDriverPool.newDriver(mockMvc, environment, cache);
+                try {
+                    FormLoadCounter counter = new FormLoadCounter(((WebConnectionHtmlUnitDriver) driver).getWebClient());
+                    elapsed[cache ? 1 : 0] = runSerially(matrix, new InspectFormPage(driver, tempFile, false));
+                    formLoads[cache ? 1 : 0] = new long[]{counter.requests, counter.bytes};
+                } finally {
+                    driver.quit();
+                }
+            }
+        }
+        for (int cache = 0; cache < 2; cache++) {
+            System.out.printf("htmlunit cache %-3s: %,d ms, %,d requests for /form with %,d bytes%n",
+                    cache == 1 ? "on" : "off", TimeUnit.NANOSECONDS.toMillis(elapsed[cache]), formLoads[cache][0], formLoads[cache][1]);
+        }
+        System.out.printf("the cache saves %,d ms and %,d bytes per matrix run of %d cases%n",
+                TimeUnit.NANOSECONDS.toMillis(elapsed[0] - elapsed[1]), formLoads[0][1] - formLoads[1][1], matrix.size());
+    }
+
+    /**
+     * Counts the loads of the form that reach the server, those served from the cache don't.
+     */
+    private static class FormLoadCounter extends WebConnectionWrapper {
+
+        long requests;
+        long bytes;
+
+        FormLoadCounter(WebClient webClient) {
+            super(webClient);
+        }
+
+        @Override
+        public WebResponse getResponse(WebRequest request) throws IOException {
+            WebResponse response = super.getResponse(request);
+            if (request.getUrl().getPath().equals("/form")) {
+                requests++;
+                bytes += response.getContentLength();
+            }
+            return response;
+        }
+    }
+
+    private static long runSerially(List<Object[]> cases, InspectFormPage page) {
+        int mismatches = 0;
+        long begin = System.nanoTime();
+        for (Object[] values : cases) {
+            String actual = page.submit((String) values[1], (String) values[2], (String) values[3], (String) values[4], (String) values[5]);
+            if (!actual.equals(values[6])) {
+                mismatches++;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (mismatches > 0) {
+            System.out.printf("%d cases differ from the golden master%n", mismatches);
+        }
+        return elapsed;
+    }
+
+    private Path createTempFile() throws IOException {
+        Path tempFile = tempDir.resolve("example.txt");
+        Files.writeString(tempFile, "Hello world!", StandardCharsets.US_ASCII);
+        return tempFile;
+    }
+
+    private static List<Object[]> cases() throws Exception {
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            return arguments
+                    .filter(not(it -> "TRACE".equals(it.get()[1]) && "text/plain".equals(it.get()[3])))
+                    .limit(CASES)
+                    .map(Arguments::get)
+                    .toList();
+        }
+    }
+
+    private long run(List<Object[]> cases, int workers, Path tempFile) throws Exception {
+        List<WebDriver> drivers = new CopyOnWriteArrayList<>();
+        ThreadLocal<InspectFormPage> page = ThreadLocal.withInitial(() -> {
+            WebDriver driver = HtmlUnitDriverPool.newDriver(mockMvc, environment);
+            drivers.add(driver);
+            return new InspectFormPage(driver, tempFile, false);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        AtomicInteger mismatches = new AtomicInteger();
+        try {
+            long begin = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Object[] values : cases) {
+                futures.add(executor.submit(() -> {
+                    String actual = page.get().submit((String) values[1], (String) values[2], (String) values[3], (String) values[4], (String) values[5]);
+                    if (!actual.equals(values[6])) {
+                        mismatches.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            if (mismatches.get() > 0) {
+                System.out.printf("%2d workers: %d cases differ from the golden master%n", workers, mismatches.get());
+            }
+            return elapsed;
+        } finally {
+            executor.shutdown();
+            drivers.forEach(WebDriver::quit);
+        }
+    }
+
+}
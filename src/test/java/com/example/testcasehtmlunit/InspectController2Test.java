@@ -1,41 +1,50 @@
 package com.example.testcasehtmlunit;
 
+import org.htmlunit.WebClient;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.ui.Select;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.springframework.test.web.servlet.htmlunit.MockMvcWebConnection;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import static java.util.function.Predicate.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
-@SpringBootTest
-@AutoConfigureMockMvc
+/**
+ * The cases run concurrently, every worker thread has its own driver from the {@link HtmlUnitDriverPool}.
+ * The nrs of the cases where HtmlUnit differs from the {@link InspectRequestSynthesizer} are written to
+ * {@code <output>.disagreements}, only the cases that aren't answered by the {@link ResultCache} are compared
+ * against the {@linkplain InspectProtocolTest#results() results of the fast tier}.
+ */
+@InspectWebTest
+@ExtendWith(HtmlUnitDriverPool.class)
+@Execution(ExecutionMode.CONCURRENT)
 public class InspectController2Test {
 
-    @Autowired
-    WebDriver driver;
-
     @TempDir
     static Path tempDir;
     static Path tempFile;
 
-    private static final ArgumentsXmlDocument output = new ArgumentsXmlDocument();
+    private static ArgumentsXmlDocument output;
+    private static ResultCache cache;
+    // the results of the cases that really ran, by nr
+    private static final Map<Integer, String> results = new ConcurrentHashMap<>();
 
     @BeforeAll
     static void createTempFile() throws IOException {
@@ -45,49 +54,80 @@ public class InspectController2Test {
 
     @BeforeAll
     static void openOutputFile() throws Exception {
+        // a forked run writes a partial file, which ForkShard merges after all forks are done
+        output = new ShardedArgumentsXmlDocument(ForkShard.outputPath());
         output.writeStart();
     }
 
+    @BeforeAll
+    static void openResultCache() throws IOException {
+        // the cache is invalidated by a new htmlunit snapshot, spring test or htmlunit driver and by any change in the main or test classes,
+        // the classes listed from the same directory name the code the results depend on
+        String mode = Boolean.getBoolean(InspectFormScript.ENABLED_PROPERTY) ? "script"
+                : Boolean.getBoolean(InspectFormPage.REUSE_PROPERTY) ? "form-reuse" : "form";
+        cache = ResultCache.open(ResultCache.DIRECTORY, mode,
+                InspectController.class, ParameterDumpWriter.class, ContentCoding.class, PreEncodedTemplate.class,
+                InspectController2Test.class, InspectFormPage.class, InspectFormScript.class, WebClient.class, HtmlUnitDriver.class, MockMvcWebConnection.class);
+    }
+
     @AfterAll
     static void afterAll() throws Exception {
         output.close();
+        // the forks write partial files, the index is written for the merged output
+        if (!ForkShard.isEnabled()) {
+            FailureIndex.writeLatest(output.getPath(), output.getFailedNrs());
+        }
+        cache.close();
+        // a difference to the requests built without a browser points at the request building of htmlunit,
+        // a cached result was checked when it ran
+        Map<Integer, String> protocolResults = InspectProtocolTest.results();
+        BitSet disagreements = new BitSet();
+        results.forEach((nr, actual) -> {
+            String protocolResult = protocolResults.get(nr);
+            if (protocolResult != null && !protocolResult.equals(actual)) {
+                disagreements.set(nr);
+            }
+        });
+        FailureIndex.write(Path.of(output.getPath() + InspectRequestSynthesizer.DISAGREEMENTS_SUFFIX), disagreements);
+        if (!disagreements.isEmpty()) {
+            System.out.println(disagreements.cardinality() + " cases differ between HtmlUnit and the InspectRequestSynthesizer: " + disagreements);
+        }
     }
 
     @ParameterizedTest(name = "{0}: method={1}, query={2}, encoding={3}, body={4}, accept={5}")
     @MethodSource("factory")
-    void shouldSubmitForm(int nr, String method, String query, String encoding, String body, String accept, String expected) throws Exception {
-        driver.get("http://localhost:8080/form");
-        new Select(driver.findElement(By.id("method"))).selectByVisibleText(method);
-        new Select(driver.findElement(By.id("query"))).selectByVisibleText(query);
-        new Select(driver.findElement(By.id("encoding"))).selectByVisibleText(encoding);
-        driver.findElement(By.id("file")).sendKeys(tempFile.toAbsolutePath().toString());
-        new Select(driver.findElement(By.id("body"))).selectByVisibleText(body);
-        new Select(driver.findElement(By.id("accept"))).selectByVisibleText(accept);
-
-        driver.findElement(By.id("button")).click();
-        waitUntilAjaxFinished();
-
-        String actual = driver.findElement(By.id("output")).getText();
+    void shouldSubmitForm(int nr, String method, String query, String encoding, String body, String accept, String expected, CaseRunner runner) throws Exception {
+        String actual = cache.computeIfAbsent(method, query, encoding, body, accept,
+                // -Dtestcasehtmlunit.page.script=true applies the whole case in a single script call
+                () -> {
+                    long begin = System.nanoTime();
+                    // a case that misses its deadline results in a timeout and gets a new driver, -Dtestcasehtmlunit.case.timeout=millis
+                    String submitted = runner.run(driver -> Boolean.getBoolean(InspectFormScript.ENABLED_PROPERTY)
+                            ? new InspectFormScript(driver, tempFile).submit(method, query, encoding, body, accept)
+                            : new InspectFormPage(driver, tempFile).submit(method, query, encoding, body, accept));
+                    // only cases that really ran are timed, a cached result would look far too cheap
+                    output.writeDuration(nr, System.nanoTime() - begin);
+                    results.put(nr, submitted);
+                    return submitted;
+                });
 
         output.writeArguments(nr, method, query, encoding, body, accept, expected, actual);
         assertThat(actual, is(expected));
     }
 
     public static Stream<Arguments> factory() throws Exception {
-        final List<Arguments> arguments = ArgumentsXmlDocument.readArguments("/OutputFromFirefox2.xml");
-        return arguments.stream()
+        // convert once with ArgumentsBinaryDocument.main("OutputFromFirefox2.xml", "OutputFromFirefox2.bin") to jump straight to a case
+//        return Stream.of(ArgumentsBinaryDocument.open(Path.of("OutputFromFirefox2.bin")).get(108));
+        // -Dtestcasehtmlunit.rerun=failures or failures-first reruns the failures of the latest run of this test
+        // ./gradlew forkedTest -Pforks=4 runs every fourth case in each of four jvms
+        // -Dtestcasehtmlunit.schedule=lpt starts the longest cases of the latest run first
+        return ForkShard.filter(CaseTimings.schedule(FailureIndex.rerun(ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")
                 .filter(not(it -> "TRACE".equals(it.get()[1]) && "text/plain".equals(it.get()[3])))
 //                .filter(it -> Integer.valueOf(108).equals(it.get()[0]))
 //                .filter(it -> Integer.valueOf(877).equals(it.get()[0]))
 //                .sorted(comparingInt(it -> (int) it.get()[0]))
 //                .limit(100)
-                ;
-    }
-
-    private void waitUntilAjaxFinished() {
-        // NOOP ... all xhr calls are synchronous
-//        new WebDriverWait(driver, Duration.of(2, SECONDS))
-//                .until(visibilityOfElementLocated(By.id("output")));
+        )));
     }
 
 }
@@ -0,0 +1,58 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@InspectWebTest
+public class InspectControllerBatchTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void shouldBounceEveryCase() throws Exception {
+        // language=JSON
+        String cases = """
+                [
+                  {"method": "GET", "query": "?a=b", "contentType": null, "body": "", "accept": "text/html"},
+                  {"method": "HEAD", "query": "?a", "contentType": null, "body": "", "accept": "text/plain"},
+                  {"method": "POST", "query": "?a=b", "contentType": "application/x-www-form-urlencoded", "body": "a=other&p1=v1", "accept": "application/json"},
+                  {"method": "OPTIONS", "query": "", "contentType": "application/x-www-form-urlencoded", "body": "p1=v1", "accept": "application/xml"},
+                  {"method": "PUT", "query": "?", "contentType": "multipart/form-data", "body": "same=value1&same=value2", "accept": "text/html", "file": "example.txt"},
+                  {"method": "GET", "query": "", "contentType": null, "body": "", "accept": "image/png"},
+                  {"method": "DELETE", "query": "?a=b", "contentType": "application/x-www-form-urlencoded", "body": "a=other&p1=v1", "accept": "text/plain"},
+                  {"method": null, "query": "?a=b", "contentType": null, "body": "", "accept": "text/html"},
+                  {"method": "GET", "query": "?a=b", "contentType": null, "body": "", "accept": null},
+                  {"method": "GET", "query": "?a=b", "contentType": null, "body": "", "accept": "text/"},
+                  {"method": "FOO", "query": "?a=b", "contentType": null, "body": "", "accept": "text/html"}
+                ]
+                """;
+
+        MvcResult result = mockMvc.perform(post("/bounce/batch").contentType(APPLICATION_JSON).content(cases))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_JSON))
+                .andExpect(jsonPath("$[0]").value("Parameters: \n  'a': ['b']\n"))
+                .andExpect(jsonPath("$[1]").value("Parameters: \n  'a': ['']\n"))
+                .andExpect(jsonPath("$[2]").value("Parameters: \n  'a': ['b', 'other']\n  'p1': ['v1']\n"))
+                .andExpect(jsonPath("$[3]").value("Parameters: \n"))
+                .andExpect(jsonPath("$[4]").value("Parameters: \n  'same': ['value1', 'value2']\n  'file': 'example.txt'\n"))
+                .andExpect(jsonPath("$[5]").value("Error 406"))
+                .andExpect(jsonPath("$[6]").value("Parameters: \n  'a': ['b', 'other']\n  'p1': ['v1']\n"))
+                .andExpect(jsonPath("$[7]").value("Error 405"))
+                .andExpect(jsonPath("$[8]").value("Parameters: \n  'a': ['b']\n"))
+                .andExpect(jsonPath("$[9]").value("Error 406"))
+                .andExpect(jsonPath("$[10]").value("Error 405"));
+    }
+
+}
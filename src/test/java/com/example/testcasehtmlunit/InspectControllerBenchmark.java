@@ -0,0 +1,79 @@
+package com.example.testcasehtmlunit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Measures the server side of the inspect matrix without a browser.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@InspectWebTest
+public class InspectControllerBenchmark {
+
+    private static final int[] BATCH_SIZES = {1, 16, 256, 4096};
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bounceBatch() throws Exception {
+        Path tempFile = tempDir.resolve("example.txt");
+        Files.writeString(tempFile, "Hello world!", StandardCharsets.US_ASCII);
+        final List<Object[]> cases;
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            cases = arguments.map(Arguments::get).toList();
+        }
+        List<InspectController.BounceCase> bounceCases = cases.stream()
+                .map(values -> InspectRequestSynthesizer.bounceCase((String) values[1], (String) values[2], (String) values[3], (String) values[4], (String) values[5], tempFile))
+                .toList();
+        InspectRequestSynthesizer synthesizer = new InspectRequestSynthesizer(mockMvc, tempFile);
+
+        for (int round = 0; round < 2; round++) {
+            // the first round warms up
+            long single = System.nanoTime();
+            for (Object[] values : cases) {
+                synthesizer.submit((String) values[1], (String) values[2], (String) values[3], (String) values[4], (String) values[5]);
+            }
+            single = System.nanoTime() - single;
+            if (round == 1) {
+                System.out.printf("/bounce, 1 request per case: %,d ns/case%n", single / cases.size());
+            }
+            for (int batchSize : BATCH_SIZES) {
+                long batched = System.nanoTime();
+                for (int from = 0; from < bounceCases.size(); from += batchSize) {
+                    byte[] content = objectMapper.writeValueAsBytes(bounceCases.subList(from, Math.min(from + batchSize, bounceCases.size())));
+                    MvcResult result = mockMvc.perform(post("/bounce/batch").contentType(APPLICATION_JSON).content(content)).andReturn();
+                    mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsByteArray();
+                }
+                batched = System.nanoTime() - batched;
+                if (round == 1) {
+                    System.out.printf("/bounce/batch, %d cases per request: %,d ns/case%n", batchSize, batched / cases.size());
+                }
+            }
+        }
+    }
+
+}
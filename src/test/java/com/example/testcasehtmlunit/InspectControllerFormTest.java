@@ -0,0 +1,155 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.http.MediaType.TEXT_PLAIN;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@InspectWebTest
+public class InspectControllerFormTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void shouldServeFormWithETag() throws Exception {
+        mockMvc.perform(get("/form"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, matchesPattern("\"[0-9a-f]{32}\"")))
+                .andExpect(header().string(CACHE_CONTROL, "max-age=3600"))
+                .andExpect(content().string(containsString("handleButtonClick")));
+    }
+
+    @Test
+    void shouldAnswerMatchingETagWithNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/form")).andReturn().getResponse().getHeader(ETAG);
+
+        mockMvc.perform(get("/form").header(IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/form").header(IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldServePrecompressedForm() throws Exception {
+        byte[] identity = mockMvc.perform(get("/form")).andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult gzip = mockMvc.perform(get("/form").header(ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(VARY, containsString(ACCEPT_ENCODING)))
+                .andExpect(header().string(ETAG, endsWith("-gzip\"")))
+                .andReturn();
+        assertThat(gzip.getResponse().getContentLength(), lessThan(identity.length / 2));
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray())).readAllBytes(), is(identity));
+
+        MvcResult deflate = mockMvc.perform(get("/form").header(ACCEPT_ENCODING, "gzip;q=0.5, deflate"))
+                .andExpect(header().string(CONTENT_ENCODING, "deflate"))
+                .andReturn();
+        assertThat(new InflaterInputStream(new ByteArrayInputStream(deflate.getResponse().getContentAsByteArray())).readAllBytes(), is(identity));
+
+        mockMvc.perform(get("/form").header(ACCEPT_ENCODING, "br, gzip;q=0"))
+                .andExpect(header().doesNotExist(CONTENT_ENCODING))
+                .andExpect(content().bytes(identity));
+    }
+
+    @Test
+    void shouldRenderSimplePageAsGzipMembers() throws Exception {
+        byte[] identity = mockMvc.perform(get("/")).andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult gzip = mockMvc.perform(get("/").header(ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        assertThat(gzip.getResponse().getContentLength(), is(gzip.getResponse().getContentAsByteArray().length));
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray())).readAllBytes(), is(identity));
+    }
+
+    @Test
+    void shouldCompressOnlyLargeDumps() throws Exception {
+        mockMvc.perform(post("/bounce").param("p1", "v1").accept(TEXT_PLAIN).header(ACCEPT_ENCODING, "gzip"))
+                .andExpect(header().doesNotExist(CONTENT_ENCODING))
+                .andExpect(content().string("Parameters: \n  'p1': ['v1']\n"));
+
+        String value = "v".repeat(InspectController.COMPRESSION_THRESHOLD);
+        MvcResult large = mockMvc.perform(post("/bounce").param("p1", value).accept(TEXT_PLAIN).header(ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_ENCODING, "gzip"))
+                .andExpect(content().contentType("text/plain;charset=UTF-8"))
+                .andReturn();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(large.getResponse().getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is("Parameters: \n  'p1': ['" + value + "']\n"));
+        }
+    }
+
+    @Test
+    void shouldNegotiateTheMostSpecificAcceptedType() throws Exception {
+        mockMvc.perform(post("/bounce").header(ACCEPT, "*/*, application/json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_TYPE, "application/json"));
+
+        mockMvc.perform(post("/bounce").header(ACCEPT, "text/*;q=0.5, application/xml"))
+                .andExpect(header().string(CONTENT_TYPE, "application/xml;charset=UTF-8"));
+
+        mockMvc.perform(post("/bounce"))
+                .andExpect(header().string(CONTENT_TYPE, "text/html;charset=UTF-8"));
+    }
+
+    @Test
+    void shouldSendParametersOfHeadInHeader() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        MvcResult result = mockMvc.perform(head("/bounce").param("a", "b+%").param("w\u00f6rld", "").session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().string(InspectController.PARAMETERS_HEADER, "Parameters: %0A  'a': ['b%2B%25']%0A  'w%C3%B6rld': ['']%0A"))
+                .andReturn();
+
+        assertThat(URLDecoder.decode(result.getResponse().getHeader(InspectController.PARAMETERS_HEADER), StandardCharsets.UTF_8),
+                is("Parameters: \n  'a': ['b+%']\n  'w\u00f6rld': ['']\n"));
+        assertThat(session.getAttribute("previousParameters"), is(nullValue()));
+    }
+
+    @Test
+    void shouldNotCreateSessionWhenParametersFitInHeader() throws Exception {
+        MvcResult post = mockMvc.perform(post("/bounce").param("a", "b")).andReturn();
+        assertThat(post.getRequest().getSession(false), is(nullValue()));
+
+        MvcResult head = mockMvc.perform(head("/bounce").param("a", "b")).andReturn();
+        assertThat(head.getRequest().getSession(false), is(nullValue()));
+    }
+
+    @Test
+    void shouldKeepParametersOfHeadInSessionWhenTooLong() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        String value = "v".repeat(5000);
+
+        mockMvc.perform(head("/bounce").param("a", value).session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(InspectController.PARAMETERS_HEADER));
+
+        mockMvc.perform(get("/previousParameters").session(session))
+                .andExpect(content().string("Parameters: \n  'a': ['" + value + "']\n"));
+    }
+
+}
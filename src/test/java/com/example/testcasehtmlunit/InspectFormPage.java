@@ -0,0 +1,96 @@
+package com.example.testcasehtmlunit;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.Select;
+
+import java.nio.file.Path;
+
+/**
+ * Drives the form of {@link InspectController} and returns the text of {@code #output}.
+ * <p>
+ * By default the form is loaded again for every case. With {@code reuse} the form is only loaded once per driver
+ * and reset between the cases instead. After every reset the fields of the form, the content and the attributes
+ * of {@code #output} and the global variables of the page are compared with those of a freshly loaded form,
+ * so a case can never see what the previous case left behind.
+ * Set the {@value #REUSE_PROPERTY} system property to {@code true} to reuse the form in the tests.
+ */
+public class InspectFormPage {
+
+    public static final String URL = "http://localhost:8080/form";
+    public static final String REUSE_PROPERTY = "testcasehtmlunit.page.reuse";
+
+    // language=JavaScript
+    private static final String RESET_SCRIPT = """
+            ['method', 'query', 'encoding', 'body', 'accept'].forEach(id => document.getElementById(id).selectedIndex = 0);
+            document.getElementById('file').value = '';
+            document.getElementById('output').textContent = '';
+            document.getElementById('output').style.display = 'none';
+            """;
+
+    // language=JavaScript
+    private static final String STATE_SCRIPT = """
+            let output = document.getElementById('output');
+            return JSON.stringify({
+                fields: ['method', 'query', 'encoding', 'body', 'accept'].map(id => document.getElementById(id).value),
+                files: document.getElementById('file').files.length,
+                output: [output.innerHTML, output.style.cssText, output.className, output.hidden],
+                // the global variables a case might have set, objects only by their type
+                globals: Object.keys(window).sort().map(key => {
+                    let value = window[key];
+                    return key + '=' + (value !== null && (typeof value === 'object' || typeof value === 'function') ? typeof value : String(value));
+                })
+            });
+            """;
+
+    private static volatile String pristineState;
+
+    private final WebDriver driver;
+    private final Path file;
+    private final boolean reuse;
+
+    public InspectFormPage(WebDriver driver, Path file) {
+        this(driver, file, Boolean.getBoolean(REUSE_PROPERTY));
+    }
+
+    public InspectFormPage(WebDriver driver, Path file, boolean reuse) {
+        this.driver = driver;
+        this.file = file;
+        this.reuse = reuse;
+    }
+
+    public String submit(String method, String query, String encoding, String body, String accept) {
+        open();
+        new Select(driver.findElement(By.id("method"))).selectByVisibleText(method);
+        new Select(driver.findElement(By.id("query"))).selectByVisibleText(query);
+        new Select(driver.findElement(By.id("encoding"))).selectByVisibleText(encoding);
+        driver.findElement(By.id("file")).sendKeys(file.toAbsolutePath().toString());
+        new Select(driver.findElement(By.id("body"))).selectByVisibleText(body);
+        new Select(driver.findElement(By.id("accept"))).selectByVisibleText(accept);
+
+        driver.findElement(By.id("button")).click();
+        // no need to wait, all xhr calls are synchronous
+
+        return driver.findElement(By.id("output")).getText();
+    }
+
+    private void open() {
+        if (!reuse || !URL.equals(driver.getCurrentUrl())) {
+            driver.get(URL);
+            if (reuse && pristineState == null) {
+                pristineState = state();
+            }
+            return;
+        }
+        ((JavascriptExecutor) driver).executeScript(RESET_SCRIPT);
+        String state = state();
+        if (!state.equals(pristineState)) {
+            throw new IllegalStateException("Form state leaked into the next case: expected '" + pristineState + "' but was '" + state + "'");
+        }
+    }
+
+    private String state() {
+        return (String) ((JavascriptExecutor) driver).executeScript(STATE_SCRIPT);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.testcasehtmlunit;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives the form of {@link InspectController} like {@link InspectFormPage}, but applies a whole case,
+ * or a batch of cases, in a single {@code executeScript} call instead of one WebDriver call per select and click.
+ * <p>
+ * The form is loaded once per driver and the file is attached once. For every case the script selects the options
+ * by their visible text, fires the change events, calls {@code handleButtonClick()} and returns the text of
+ * {@code #output} like {@code getText()} does, empty while it's hidden and without the trailing line breaks.
+ * Every {@value #CROSS_CHECK_PROPERTY}th case (default 16, 0 disables the check) is submitted through
+ * {@link InspectFormPage} as well, and a different result fails the case.
+ * Set the {@value #ENABLED_PROPERTY} system property to {@code true} to use the script in the tests.
+ */
+public class InspectFormScript {
+
+    public static final String ENABLED_PROPERTY = "testcasehtmlunit.page.script";
+    public static final String CROSS_CHECK_PROPERTY = "testcasehtmlunit.page.script.crossCheck";
+
+    // language=JavaScript
+    private static final String SUBMIT_SCRIPT = """
+            function select(id, text) {
+                let element = document.getElementById(id);
+                let option = Array.from(element.options).find(it => it.text === text);
+                if (option === undefined) {
+                    throw new Error('No option "' + text + '" in #' + id);
+                }
+                element.selectedIndex = option.index;
+                element.dispatchEvent(new Event('change', {bubbles: true}));
+            }
+            return arguments[0].map(it => {
+                ['method', 'query', 'encoding', 'body', 'accept'].forEach((id, i) => select(id, it[i]));
+                handleButtonClick();
+                // no need to wait, all xhr calls are synchronous
+                let output = document.getElementById('output');
+                let style = window.getComputedStyle(output);
+                if (style.display === 'none' || style.visibility === 'hidden') {
+                    return '';
+                }
+                return output.textContent.replace(/\\n+$/, '');
+            });
+            """;
+
+    private static final AtomicLong submitted = new AtomicLong();
+
+    private final WebDriver driver;
+    private final Path file;
+    private final int crossCheckEvery;
+
+    public InspectFormScript(WebDriver driver, Path file) {
+        this(driver, file, Integer.getInteger(CROSS_CHECK_PROPERTY, 16));
+    }
+
+    public InspectFormScript(WebDriver driver, Path file, int crossCheckEvery) {
+        this.driver = driver;
+        this.file = file;
+        this.crossCheckEvery = crossCheckEvery;
+    }
+
+    public String submit(String method, String query, String encoding, String body, String accept) {
+        return submitAll(List.of(List.of(method, query, encoding, body, accept))).get(0);
+    }
+
+    /**
+     * Submits every case, given as (method, query, encoding, body, accept), in a single script call.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> submitAll(List<List<String>> cases) {
+        open();
+        List<String> actuals = new ArrayList<>((List<String>) ((JavascriptExecutor) driver).executeScript(SUBMIT_SCRIPT, cases));
+        for (int i = 0; i < cases.size(); i++) {
+            if (crossCheckEvery > 0 && submitted.getAndIncrement() % crossCheckEvery == 0) {
+                crossCheck(cases.get(i), actuals.get(i));
+            }
+        }
+        return actuals;
+    }
+
+    private void crossCheck(List<String> values, String actual) {
+        // leaves the freshly loaded form with the file attached, so the next script call can go on with it
+        String expected = new InspectFormPage(driver, file, false).submit(values.get(0), values.get(1), values.get(2), values.get(3), values.get(4));
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Script differs from the form for " + values + ": expected '" + expected + "' but was '" + actual + "'");
+        }
+    }
+
+    private void open() {
+        if (!InspectFormPage.URL.equals(driver.getCurrentUrl())) {
+            driver.get(InspectFormPage.URL);
+            driver.findElement(By.id("file")).sendKeys(file.toAbsolutePath().toString());
+        }
+    }
+}
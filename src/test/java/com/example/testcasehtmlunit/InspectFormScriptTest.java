@@ -0,0 +1,59 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.function.Predicate.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@InspectWebTest
+public class InspectFormScriptTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    Environment environment;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSubmitLikeTheForm() throws Exception {
+        Path tempFile = tempDir.resolve("example.txt");
+        Files.writeString(tempFile, "Hello world!", StandardCharsets.US_ASCII);
+        final List<List<String>> cases;
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            cases = arguments
+                    .filter(not(it -> "TRACE".equals(it.get()[1]) && "text/plain".equals(it.get()[3])))
+                    .filter(it -> (int) it.get()[0] % 29 == 0)
+                    .map(it -> List.of((String) it.get()[1], (String) it.get()[2], (String) it.get()[3], (String) it.get()[4], (String) it.get()[5]))
+                    .toList();
+        }
+        WebDriver driver = HtmlUnitDriverPool.newDriver(mockMvc, environment);
+        try {
+            List<String> actuals = new InspectFormScript(driver, tempFile, 0).submitAll(cases);
+
+            InspectFormPage page = new InspectFormPage(driver, tempFile, false);
+            List<String> expecteds = cases.stream()
+                    .map(it -> page.submit(it.get(0), it.get(1), it.get(2), it.get(3), it.get(4)))
+                    .toList();
+            assertThat(actuals, is(expecteds));
+        } finally {
+            driver.quit();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * The fast tier: the whole matrix without a browser, the requests are built by the {@link InspectRequestSynthesizer}.
+ * Runs before the HtmlUnit tier, which flags the cases where both tiers disagree using the {@link #results()} of this tier.
+ */
+@Order(1)
+@InspectWebTest
+@Execution(ExecutionMode.CONCURRENT)
+public class InspectProtocolTest {
+
+    @TempDir
+    static Path tempDir;
+    static Path tempFile;
+
+    private static final String OUTPUT_PREFIX = "protocol-";
+
+    private static final ArgumentsXmlDocument output = new ShardedArgumentsXmlDocument(ArgumentsXmlDocument.newPath(OUTPUT_PREFIX, false));
+    // the actual results by nr, set when this tier runs in the same jvm
+    private static final Map<Integer, String> results = new ConcurrentHashMap<>();
+    private static volatile boolean ran;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeAll
+    static void createTempFile() throws IOException {
+        tempFile = tempDir.resolve("example.txt");
+        Files.writeString(tempFile, "Hello world!", StandardCharsets.US_ASCII);
+    }
+
+    @BeforeAll
+    static void openOutputFile() throws Exception {
+        ran = true;
+        output.writeStart();
+    }
+
+    @AfterAll
+    static void closeOutputFile() throws Exception {
+        output.close();
+    }
+
+    @ParameterizedTest(name = "{0}: method={1}, query={2}, encoding={3}, body={4}, accept={5}")
+    @MethodSource("factory")
+    void shouldBounce(int nr, String method, String query, String encoding, String body, String accept, String expected) throws Exception {
+        String actual = new InspectRequestSynthesizer(mockMvc, tempFile).submit(method, query, encoding, body, accept);
+
+        results.put(nr, actual);
+        output.writeArguments(nr, method, query, encoding, body, accept, expected, actual);
+        assertThat(actual, is(expected));
+    }
+
+    /**
+     * The actual results by {@code nr} of this tier in the same jvm, or else of the newest {@code protocol-*.xml} in the working directory.
+     * Empty when there is neither, e.g. for a single test class run from a fresh checkout.
+     */
+    static Map<Integer, String> results() throws IOException, XMLStreamException {
+        if (ran) {
+            return Map.copyOf(results);
+        }
+        Optional<Path> newest;
+        try (Stream<Path> files = Files.list(Path.of(""))) {
+            newest = files
+                    .filter(it -> it.getFileName().toString().startsWith(OUTPUT_PREFIX) && it.getFileName().toString().endsWith(".xml"))
+                    .max(Comparator.comparing(it -> it.toFile().lastModified()));
+        }
+        if (newest.isEmpty()) {
+            return Map.of();
+        }
+        try (Stream<ArgumentsRecord> records = ArgumentsXmlDocument.streamRecords(Files.newInputStream(newest.get()))) {
+            return records.collect(Collectors.toMap(ArgumentsRecord::nr, ArgumentsRecord::actual, (first, second) -> second));
+        }
+    }
+
+    public static Stream<Arguments> factory() throws Exception {
+        return ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml");
+    }
+
+}
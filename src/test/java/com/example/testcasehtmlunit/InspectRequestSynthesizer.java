@@ -0,0 +1,162 @@
+package com.example.testcasehtmlunit;
+
+import jakarta.servlet.ServletException;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+
+/**
+ * Builds the requests that {@code handleButtonClick()} of {@link InspectController} sends for a case
+ * and performs them directly with {@link MockMvc}, without a browser.
+ * <p>
+ * Follows the script step by step: no data for GET and HEAD or for text/plain, the {@code _method} override
+ * for PATCH and TRACE with data, no Content-Type for multipart and the parameters of HEAD from the
+ * {@value InspectController#PARAMETERS_HEADER} header, or from a {@code /previousParameters} request when they didn't fit.
+ * Like {@code getText()}, the result is the text of {@code #output} without the trailing line breaks.
+ * A case where this differs from HtmlUnit points at the request building of HtmlUnit.
+ */
+public class InspectRequestSynthesizer {
+
+    public static final String DISAGREEMENTS_SUFFIX = ".disagreements";
+
+    // the values of the options of #body by their text
+    private static final Map<String, String> BODIES = Map.of(
+            "empty", "",
+            "oneParameter", "p1=v1",
+            "emptyValue", "a=",
+            "sameAsInQuery", "a=b",
+            "sameKeyAsInQuery", "a=other",
+            "sameKeyDifferentValues", "same=value1&same=value2");
+
+    private final MockMvc mockMvc;
+    private final MockMultipartFile file;
+
+    public InspectRequestSynthesizer(MockMvc mockMvc, Path file) throws IOException {
+        this.mockMvc = mockMvc;
+        this.file = new MockMultipartFile("file", file.getFileName().toString(), "text/plain", Files.readAllBytes(file));
+    }
+
+    public String submit(String method, String query, String encoding, String body, String accept) throws Exception {
+        // every case starts with a new session, like after loading the form
+        MockHttpSession session = new MockHttpSession();
+        MvcResult result;
+        try {
+            result = mockMvc.perform(synthesize(method, query, encoding, body, accept).session(session)).andReturn();
+        } catch (ServletException e) {
+            // an unhandled exception results in an internal server error on a real server
+            return "Error 500";
+        }
+        int status = result.getResponse().getStatus();
+        if (status < 200 || status >= 300) {
+            return "Error " + status;
+        }
+        if ("HEAD".equals(method)) {
+            String parameters = result.getResponse().getHeader(InspectController.PARAMETERS_HEADER);
+            if (parameters != null) {
+                return URLDecoder.decode(parameters, StandardCharsets.UTF_8).replaceAll("\n+$", "");
+            }
+            result = mockMvc.perform(get("/previousParameters").session(session)).andReturn();
+            status = result.getResponse().getStatus();
+            if (status < 200 || status >= 300) {
+                // the script leaves #output hidden
+                return "";
+            }
+        }
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8).replaceAll("\n+$", "");
+    }
+
+    public MockHttpServletRequestBuilder synthesize(String method, String query, String encoding, String body, String accept) {
+        List<String[]> data = data(method, encoding, body);
+        String effectiveMethod = effectiveMethod(method, data);
+        String url = "/bounce" + query;
+
+        MockHttpServletRequestBuilder builder;
+        if (data != null && encoding.equals("multipart/form-data")) {
+            MockMultipartHttpServletRequestBuilder multipartBuilder = multipart(HttpMethod.valueOf(effectiveMethod), url);
+            data.forEach(it -> multipartBuilder.param(it[0], it[1]));
+            multipartBuilder.file(file);
+            builder = multipartBuilder;
+        } else {
+            builder = request(HttpMethod.valueOf(effectiveMethod), url);
+            if (data != null) {
+                builder.content(urlEncode(data));
+            }
+        }
+        builder.header("Cache-Control", "no-cache");
+        if (encoding.equals("multipart/form-data")) {
+            // Warning: do NOT set the Content-Type header yourself!
+        } else if (!effectiveMethod.equals("GET") && !effectiveMethod.equals("HEAD")) {
+            builder.contentType(encoding);
+        }
+        builder.header("Accept", accept);
+        return builder;
+    }
+
+    /**
+     * The case for {@code /bounce/batch}, the form fields of a multipart body are url encoded and the file is given by its name.
+     */
+    public static InspectController.BounceCase bounceCase(String method, String query, String encoding, String body, String accept, Path file) {
+        List<String[]> data = data(method, encoding, body);
+        String effectiveMethod = effectiveMethod(method, data);
+        String contentType = null;
+        if (encoding.equals("multipart/form-data")) {
+            // the browser sets the Content-Type of FormData
+            if (data != null) {
+                contentType = encoding;
+            }
+        } else if (!effectiveMethod.equals("GET") && !effectiveMethod.equals("HEAD")) {
+            contentType = encoding;
+        }
+        String fileName = data != null && encoding.equals("multipart/form-data") ? file.getFileName().toString() : null;
+        return new InspectController.BounceCase(effectiveMethod, query, contentType, data == null ? "" : urlEncode(data), accept, fileName);
+    }
+
+    private static List<String[]> data(String method, String encoding, String body) {
+        if (method.equals("GET") || method.equals("HEAD")
+                || !encoding.equals("application/x-www-form-urlencoded") && !encoding.equals("multipart/form-data")) {
+            return null;
+        }
+        List<String[]> data = new ArrayList<>();
+        // for some reason spring boot dislikes the "patch" method, something goes wrong with trace requests
+        if (method.equals("PATCH") || method.equals("TRACE")) {
+            data.add(new String[]{"_method", method});
+        }
+        for (String pair : BODIES.getOrDefault(body, body).split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            String[] keyValue = pair.split("=", -1);
+            data.add(new String[]{keyValue[0], keyValue.length > 1 ? keyValue[1] : ""});
+        }
+        return data;
+    }
+
+    private static String effectiveMethod(String method, List<String[]> data) {
+        return data != null && (method.equals("PATCH") || method.equals("TRACE")) ? "POST" : method;
+    }
+
+    private static String urlEncode(List<String[]> data) {
+        StringJoiner content = new StringJoiner("&");
+        data.forEach(it -> content.add(URLEncoder.encode(it[0], StandardCharsets.UTF_8) + "=" + URLEncoder.encode(it[1], StandardCharsets.UTF_8)));
+        return content.toString();
+    }
+}
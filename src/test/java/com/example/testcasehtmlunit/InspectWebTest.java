@@ -0,0 +1,22 @@
+package com.example.testcasehtmlunit;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+
+import java.lang.annotation.*;
+
+/**
+ * The slim context of the HtmlUnit suites: only {@link SimpleController} and {@link InspectController} with Spring MVC,
+ * the hidden method filter, multipart, Jackson XML and the MockMvc-backed {@code WebDriver}.
+ * <p>
+ * All test classes with this annotation share one cached context.
+ * {@link ContextStartupBenchmark} compares its startup with a full {@code @SpringBootTest}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@WebMvcTest(controllers = {SimpleController.class, InspectController.class}, properties = "spring.mvc.hiddenmethod.filter.enabled=true")
+@ImportAutoConfiguration(MultipartAutoConfiguration.class)
+public @interface InspectWebTest {
+}
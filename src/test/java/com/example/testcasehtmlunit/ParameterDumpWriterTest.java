@@ -0,0 +1,68 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ParameterDumpWriterTest {
+
+    @Test
+    void shouldWriteDump() throws Exception {
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        parameters.put("a", new String[]{"b", ""});
+        parameters.put("none", null);
+        parameters.put("w\u00f6rld", new String[]{"\u20ac \ud83d\ude00 \ud83d and \ude00"});
+        MockMultipartFile file = new MockMultipartFile("file", "example.txt", "text/plain", new byte[0]);
+        List<Integer> lengths = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ParameterDumpWriter.write(parameters, file, length -> {
+            lengths.add(length);
+            return out;
+        });
+
+        // the unpaired surrogates are encoded as '?' like String.getBytes does
+        String expected = "Parameters: \n  'a': ['b', '']\n  'none': [null]\n  'w\u00f6rld': ['\u20ac \ud83d\ude00 ? and ?']\n  'file': 'example.txt'\n";
+        assertThat(out.toByteArray(), is(expected.getBytes(StandardCharsets.UTF_8)));
+        assertThat(lengths, contains(expected.getBytes(StandardCharsets.UTF_8).length));
+        assertThat(ParameterDumpWriter.dump(parameters, file), is(expected));
+    }
+
+    @Test
+    void shouldFlushDumpsLargerThanBuffer() throws Exception {
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            parameters.put("key" + i, new String[]{"\u00e4".repeat(i), "v".repeat(100)});
+        }
+        List<Integer> lengths = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ParameterDumpWriter.write(parameters, null, length -> {
+            lengths.add(length);
+            return out;
+        });
+        // the buffer of the thread is reused
+        ParameterDumpWriter.write(Map.of("a", new String[]{"b"}), null, length -> {
+            lengths.add(length);
+            return out;
+        });
+
+        StringBuilder expected = new StringBuilder("Parameters: \n");
+        for (int i = 0; i < 300; i++) {
+            expected.append("  'key").append(i).append("': ['").append("\u00e4".repeat(i)).append("', '").append("v".repeat(100)).append("']\n");
+        }
+        assertThat(expected.toString().getBytes(StandardCharsets.UTF_8).length, greaterThan(ParameterDumpWriter.BUFFER_SIZE));
+        assertThat(out.toString(StandardCharsets.UTF_8), is(expected + "Parameters: \n  'a': ['b']\n"));
+        assertThat(lengths, contains(-1, 26));
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PreEncodedTemplateTest {
+
+    @Test
+    void shouldRenderLikeFormatted() throws Exception {
+        String[] values = {"1", "a, b", "example.txt", "Hello w\u00f6rld! \u20ac", "none"};
+        byte[][] encoded = PreEncodedTemplate.encode(values);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        SimpleController.TEMPLATE.writeTo(out, encoded);
+
+        byte[] expected = SimpleController.HTML_TEMPLATE.formatted((Object[]) values).getBytes(StandardCharsets.UTF_8);
+        assertThat(out.toByteArray(), is(expected));
+        assertThat(SimpleController.TEMPLATE.length(encoded), is(expected.length));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ContentCoding.class)
+    void shouldDecodeLikeFormatted(ContentCoding coding) throws Exception {
+        // the long value needs more than one stored block
+        String[] values = {"1", "", "example.txt", "Hello w\u00f6rld! \u20ac", "x".repeat(70_000)};
+        byte[][] encoded = PreEncodedTemplate.encode(values);
+        PreEncodedTemplate template = SimpleController.TEMPLATE.encoded(coding);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        template.writeTo(out, encoded);
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        InputStream decoded = switch (coding) {
+            case GZIP -> new GZIPInputStream(in);
+            case DEFLATE -> new InflaterInputStream(in);
+            case IDENTITY -> in;
+        };
+        byte[] expected = SimpleController.HTML_TEMPLATE.formatted((Object[]) values).getBytes(StandardCharsets.UTF_8);
+        assertThat(decoded.readAllBytes(), is(expected));
+        assertThat(template.length(encoded), is(out.size()));
+    }
+
+    @Test
+    void shouldCombineAdler32() {
+        byte[] first = "Hello ".getBytes(StandardCharsets.US_ASCII);
+        byte[] second = "world!".getBytes(StandardCharsets.US_ASCII);
+        Adler32 whole = new Adler32();
+        whole.update(first);
+        whole.update(second);
+
+        assertThat(PreEncodedTemplate.adler32Combine(adler32(first), adler32(second), second.length), is(whole.getValue()));
+        assertThat(PreEncodedTemplate.adler32Combine(adler32(first), 1, 0), is(adler32(first)));
+    }
+
+    private static long adler32(byte[] bytes) {
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        return adler.getValue();
+    }
+
+    @Test
+    void shouldSupportEscapedPercent() throws Exception {
+        PreEncodedTemplate template = PreEncodedTemplate.compile("100%% of %s");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        template.writeTo(out, PreEncodedTemplate.encode("x"));
+
+        assertThat(out.toString(StandardCharsets.UTF_8), is("100% of x"));
+    }
+
+    @Test
+    void shouldRejectOtherSpecifiers() {
+        assertThrows(IllegalArgumentException.class, () -> PreEncodedTemplate.compile("%d"));
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.example.testcasehtmlunit;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.WebClient;
+import org.htmlunit.html.HtmlFileInput;
+import org.htmlunit.html.HtmlPage;
+import org.htmlunit.html.HtmlSelect;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * Runs the inspect matrix against the application on Tomcat on a random port, from many concurrent HtmlUnit clients,
+ * with platform and with virtual request threads ({@code spring.threads.virtual.enabled}).
+ * Every client has its own {@link WebClient} on its own thread, a virtual thread where available.
+ * <p>
+ * Virtual threads need Java 21, on an older runtime the virtual row is skipped.
+ * Set the {@value #VIRTUAL_PROPERTY} system property to {@code true} or {@code false} to run only one mode.
+ * Run with {@code ./gradlew benchmark}, or with {@code ./gradlew virtualThreadBenchmark} on a Java 21 toolchain.
+ */
+@Tag("benchmark")
+public class RealServerBenchmark {
+
+    public static final String VIRTUAL_PROPERTY = "testcasehtmlunit.server.virtual";
+
+    private static final int CLIENTS = 200;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void concurrentClients() throws Exception {
+        Path tempFile = tempDir.resolve("example.txt");
+        Files.writeString(tempFile, "Hello world!", StandardCharsets.US_ASCII);
+        final List<Object[]> cases;
+        try (Stream<Arguments> arguments = ArgumentsXmlDocument.streamArguments("/OutputFromFirefox2.xml")) {
+            cases = arguments
+                    .filter(not(it -> "TRACE".equals(it.get()[1]) && "text/plain".equals(it.get()[3])))
+                    .map(Arguments::get)
+                    .toList();
+        }
+        boolean virtualAvailable = Runtime.version().feature() >= 21;
+        if (!virtualAvailable) {
+            System.out.println("Virtual threads need Java 21, running on " + Runtime.version() + ", skipping the virtual row");
+        }
+        String mode = System.getProperty(VIRTUAL_PROPERTY, "");
+        for (boolean virtual : new boolean[]{false, true}) {
+            if ((mode.isEmpty() || Boolean.parseBoolean(mode) == virtual) && (!virtual || virtualAvailable)) {
+                run(cases, virtual, tempFile);
+            }
+        }
+    }
+
+    private static void run(List<Object[]> cases, boolean virtual, Path tempFile) throws Exception {
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(TestcasehtmlunitApplication.class)
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + virtual)
+                .run()) {
+            String url = "http://localhost:" + context.getWebServer().getPort() + "/form";
+            // warm up, then measure
+            submitAll(cases, virtual, url, tempFile);
+            long begin = System.nanoTime();
+            long[] latencies = submitAll(cases, virtual, url, tempFile);
+            long elapsed = System.nanoTime() - begin;
+
+            Arrays.sort(latencies);
+            System.out.printf("%s threads, %d clients: %,7.1f cases/s, latency p50 %,d ms, p90 %,d ms, p99 %,d ms, max %,d ms%n",
+                    virtual ? "virtual" : "platform", CLIENTS, cases.size() * 1e9 / elapsed,
+                    percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99), TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length - 1]));
+        }
+    }
+
+    private static long[] submitAll(List<Object[]> cases, boolean virtual, String url, Path tempFile) throws Exception {
+        long[] latencies = new long[cases.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger mismatches = new AtomicInteger();
+        ExecutorService executor = newExecutor(virtual);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                clients.add(executor.submit(() -> {
+                    try (WebClient webClient = new WebClient(BrowserVersion.CHROME)) {
+                        webClient.getOptions().setCssEnabled(false);
+                        webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+                        for (int i = next.getAndIncrement(); i < cases.size(); i = next.getAndIncrement()) {
+                            Object[] values = cases.get(i);
+                            long begin = System.nanoTime();
+                            String actual = submit(webClient, url, tempFile, values);
+                            latencies[i] = System.nanoTime() - begin;
+                            if (!actual.equals(values[6])) {
+                                mismatches.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (mismatches.get() > 0) {
+            System.out.printf("%d cases differ from the golden master%n", mismatches.get());
+        }
+        return latencies;
+    }
+
+    private static String submit(WebClient webClient, String url, Path tempFile, Object[] values) throws Exception {
+        HtmlPage page = webClient.getPage(url);
+        select(page, "method", (String) values[1]);
+        select(page, "query", (String) values[2]);
+        select(page, "encoding", (String) values[3]);
+        ((HtmlFileInput) page.getElementById("file")).setFiles(tempFile.toFile());
+        select(page, "body", (String) values[4]);
+        select(page, "accept", (String) values[5]);
+        page.getElementById("button").click();
+        // no need to wait, all xhr calls are synchronous
+        return page.getElementById("output").getVisibleText();
+    }
+
+    private static void select(HtmlPage page, String id, String text) {
+        HtmlSelect select = (HtmlSelect) page.getElementById(id);
+        select.setSelectedAttribute(select.getOptionByText(text), true);
+    }
+
+    private static ExecutorService newExecutor(boolean virtual) throws Exception {
+        if (virtual) {
+            // the classes are compiled for Java 17, so the virtual thread executor is looked up at runtime
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        return Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)]);
+    }
+}
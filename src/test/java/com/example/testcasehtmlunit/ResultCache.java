@@ -0,0 +1,224 @@
+package com.example.testcasehtmlunit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of the actual result of each case, so unchanged cases don't have to be run again.
+ * <p>
+ * Every cache file belongs to a fingerprint of the mode the cases run in and of the given classes: every class file
+ * of the directory a class is loaded from and the whole jar of a class loaded from a jar. A new HtmlUnit snapshot
+ * or any change to the main classes results in a new fingerprint and therefore in an empty cache.
+ * The cache is only used when the {@value #ENABLED_PROPERTY} system property is {@code true}.
+ * <p>
+ * Every fork of a {@linkplain ForkShard forked run} writes a file of its own, {@link #mergeForks(Path)} merges them.
+ */
+public class ResultCache implements AutoCloseable {
+
+    public static final String ENABLED_PROPERTY = "testcasehtmlunit.cache";
+    public static final Path DIRECTORY = Path.of("build", "result-cache");
+
+    private static final Pattern FORK_FILE = Pattern.compile("(results-[0-9a-f]+)\\.fork-\\d+\\.properties");
+
+    private final Path file;
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private volatile boolean changed;
+
+    private ResultCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param mode how the cases are run, e.g. with the form or with a single script, the results of different modes may differ
+     */
+    public static ResultCache open(Path directory, String mode, Class<?>... fingerprintClasses) throws IOException {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY)) {
+            return new ResultCache(null);
+        }
+        String name = "results-" + fingerprint(mode, fingerprintClasses);
+        Path merged = directory.resolve(name + ".properties");
+        ResultCache cache = new ResultCache(ForkShard.isEnabled()
+                ? directory.resolve(name + ".fork-" + Integer.getInteger(ForkShard.INDEX_PROPERTY) + ".properties")
+                : merged);
+        load(merged, cache.results);
+        load(cache.file, cache.results);
+        return cache;
+    }
+
+    /**
+     * Merges the files of the forks into the file of their fingerprint and deletes them.
+     */
+    public static void mergeForks(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<String, List<Path>> forkFiles = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(it -> {
+                Matcher matcher = FORK_FILE.matcher(it.getFileName().toString());
+                if (matcher.matches()) {
+                    forkFiles.computeIfAbsent(matcher.group(1), name -> new ArrayList<>()).add(it);
+                }
+            });
+        }
+        for (Map.Entry<String, List<Path>> entry : forkFiles.entrySet()) {
+            Path merged = directory.resolve(entry.getKey() + ".properties");
+            Map<String, String> results = new TreeMap<>();
+            load(merged, results);
+            for (Path forkFile : entry.getValue()) {
+                load(forkFile, results);
+            }
+            store(merged, results);
+            for (Path forkFile : entry.getValue()) {
+                Files.delete(forkFile);
+            }
+        }
+    }
+
+    private static void load(Path file, Map<String, String> results) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        properties.forEach((key, value) -> results.put((String) key, (String) value));
+    }
+
+    private static void store(Path file, Map<String, String> results) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(results);
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Returns the cached actual result of the case, or computes and caches it.
+     */
+    public String computeIfAbsent(String method, String query, String encoding, String body, String accept, Callable<String> actual) throws Exception {
+        if (!isEnabled()) {
+            return actual.call();
+        }
+        String key = key(method, query, encoding, body, accept);
+        String cached = results.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String computed = actual.call();
+        // a timeout says nothing about the case itself
+        if (!computed.startsWith(CaseRunner.TIMEOUT_RESULT_PREFIX)) {
+            results.put(key, computed);
+            changed = true;
+        }
+        return computed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!isEnabled() || !changed) {
+            return;
+        }
+        store(file, new TreeMap<>(results));
+    }
+
+    private static String key(String method, String query, String encoding, String body, String accept) {
+        MessageDigest digest = sha256();
+        for (String value : new String[]{method, query, encoding, body, accept}) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    static String fingerprint(String mode, Class<?>... classes) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(mode.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        Set<Path> locations = new HashSet<>();
+        for (Class<?> clazz : classes) {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            Path location = null;
+            try {
+                location = codeSource == null ? null : Path.of(codeSource.getLocation().toURI());
+            } catch (URISyntaxException ignored) {
+            }
+            if (location != null && !locations.add(location)) {
+                // the whole directory or jar is part of the fingerprint already
+                continue;
+            }
+            if (location != null && Files.isRegularFile(location)) {
+                digest.update(location.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = Files.newInputStream(location)) {
+                    update(digest, in);
+                }
+            } else if (location != null && Files.isDirectory(location)) {
+                // every class of the directory, not only the listed ones, so a forgotten helper class can't serve stale results
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(location)) {
+                    files = walk.filter(Files::isRegularFile).sorted().toList();
+                }
+                for (Path file : files) {
+                    digest.update(location.relativize(file).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                    try (InputStream in = Files.newInputStream(file)) {
+                        update(digest, in);
+                    }
+                }
+            } else {
+                digest.update(clazz.getName().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+                    if (in == null) {
+                        throw new IOException("Bytecode of " + clazz.getName() + " not found");
+                    }
+                    update(digest, in);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static void update(MessageDigest digest, InputStream in) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
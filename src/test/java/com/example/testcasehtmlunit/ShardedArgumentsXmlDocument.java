@@ -0,0 +1,201 @@
+package com.example.testcasehtmlunit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets every worker thread write its records to its own shard file without any shared lock.
+ * <p>
+ * {@link #close()} merges the shards ordered by {@code nr} into the final document,
+ * which is byte-for-byte identical to what {@link ArgumentsXmlDocument} writes when the records arrive ordered by {@code nr}.
+ */
+public class ShardedArgumentsXmlDocument extends ArgumentsXmlDocument {
+
+    private static final int MERGE_BATCH_SIZE = 256;
+
+    private final Path shardDirectory;
+    private final AtomicInteger shardCount = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Shard> shards = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Shard> shard = ThreadLocal.withInitial(this::newShard);
+
+    public ShardedArgumentsXmlDocument() {
+        shardDirectory = Path.of(getPath() + ".shards");
+    }
+
+    public ShardedArgumentsXmlDocument(Path path) {
+        super(path);
+        shardDirectory = Path.of(getPath() + ".shards");
+    }
+
+    @Override
+    public void writeStart() throws Exception {
+        Files.createDirectories(shardDirectory);
+    }
+
+    @Override
+    public void writeArguments(int nr, String method, String query, String encoding, String body, String accept, String expected, String actual) throws Exception {
+        shard.get().write(new ArgumentsRecord(nr, method, query, encoding, body, accept, expected, actual));
+    }
+
+    private Shard newShard() {
+        try {
+            Shard newShard = new Shard(shardDirectory.resolve("shard-" + shardCount.getAndIncrement()));
+            shards.add(newShard);
+            return newShard;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeEnd() throws Exception {
+        PriorityQueue<ShardReader> readers = new PriorityQueue<>(Comparator.comparingInt(it -> it.current.nr()));
+        try {
+            for (Shard shard : shards) {
+                shard.out.close();
+                ShardReader reader = shard.sorted ? new StreamingShardReader(shard.path) : new SortingShardReader(shard.path);
+                if (reader.advance()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            super.writeStart();
+            List<ArgumentsRecord> batch = new ArrayList<>(MERGE_BATCH_SIZE);
+            while (!readers.isEmpty()) {
+                ShardReader reader = readers.poll();
+                batch.add(reader.current);
+                if (reader.advance()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+                if (batch.size() == MERGE_BATCH_SIZE) {
+                    writeArguments(batch);
+                    batch.clear();
+                }
+            }
+            writeArguments(batch);
+            super.writeEnd();
+        } finally {
+            for (ShardReader reader : readers) {
+                reader.close();
+            }
+        }
+        for (Shard shard : shards) {
+            Files.deleteIfExists(shard.path);
+        }
+        Files.deleteIfExists(shardDirectory);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static ArgumentsRecord readRecord(int nr, DataInputStream in) throws IOException {
+        return new ArgumentsRecord(nr, readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in));
+    }
+
+    private static class Shard {
+
+        private final Path path;
+        private final DataOutputStream out;
+        private int lastNr = Integer.MIN_VALUE;
+        private boolean sorted = true;
+
+        Shard(Path path) throws IOException {
+            this.path = path;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+
+        void write(ArgumentsRecord record) throws IOException {
+            if (record.nr() <= lastNr) {
+                sorted = false;
+            }
+            lastNr = record.nr();
+            out.writeInt(record.nr());
+            writeString(out, record.method());
+            writeString(out, record.query());
+            writeString(out, record.encoding());
+            writeString(out, record.body());
+            writeString(out, record.accept());
+            writeString(out, record.expected());
+            writeString(out, record.actual());
+        }
+    }
+
+    private abstract static class ShardReader implements Closeable {
+
+        ArgumentsRecord current;
+
+        abstract boolean advance() throws IOException;
+    }
+
+    private static class StreamingShardReader extends ShardReader {
+
+        private final DataInputStream in;
+
+        StreamingShardReader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            final int nr;
+            try {
+                nr = in.readInt();
+            } catch (EOFException e) {
+                current = null;
+                return false;
+            }
+            current = readRecord(nr, in);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Fallback for a shard whose records were not written ordered by {@code nr}.
+     */
+    private static class SortingShardReader extends ShardReader {
+
+        private final Iterator<ArgumentsRecord> iterator;
+
+        SortingShardReader(Path path) throws IOException {
+            List<ArgumentsRecord> records = new ArrayList<>();
+            try (StreamingShardReader reader = new StreamingShardReader(path)) {
+                while (reader.advance()) {
+                    records.add(reader.current);
+                }
+            }
+            records.sort(Comparator.comparingInt(ArgumentsRecord::nr));
+            iterator = records.iterator();
+        }
+
+        @Override
+        boolean advance() {
+            current = iterator.hasNext() ? iterator.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
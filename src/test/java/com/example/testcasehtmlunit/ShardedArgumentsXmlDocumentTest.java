@@ -0,0 +1,67 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ShardedArgumentsXmlDocumentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMergeShardsIntoSameBytesAsSerialWriter() throws Exception {
+        final List<Arguments> arguments = ArgumentsXmlDocument.readArguments("/OutputFromFirefox2.xml");
+
+        Path serial = tempDir.resolve("serial.xml");
+        try (ArgumentsXmlDocument output = new ArgumentsXmlDocument(serial)) {
+            output.writeStart();
+            for (Arguments argument : arguments) {
+                write(output, argument);
+            }
+        }
+
+        Path sharded = tempDir.resolve("sharded.xml");
+        List<Arguments> shuffled = new ArrayList<>(arguments);
+        Collections.shuffle(shuffled, new Random(42));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ArgumentsXmlDocument output = new ShardedArgumentsXmlDocument(sharded)) {
+            output.writeStart();
+            List<Future<?>> futures = new ArrayList<>();
+            for (Arguments argument : shuffled) {
+                futures.add(executor.submit(() -> {
+                    write(output, argument);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(Files.mismatch(serial, sharded), is(-1L));
+        assertThat(Files.exists(Path.of(sharded + ".shards")), is(false));
+    }
+
+    private static void write(ArgumentsXmlDocument output, Arguments argument) throws Exception {
+        Object[] values = argument.get();
+        output.writeArguments((int) values[0], (String) values[1], (String) values[2], (String) values[3],
+                (String) values[4], (String) values[5], "???Unknown???", (String) values[6]);
+    }
+
+}
@@ -5,8 +5,6 @@ import org.junit.jupiter.api.io.TempDir;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.boot.test.context.SpringBootTest;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -24,8 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertAll;
  * reads this.webRequest.getParameters(), but ignores query parameters?
  * org.htmlunit.WebRequest.getParameters ignores query string parameters for post?
  */
-@SpringBootTest
-@AutoConfigureMockMvc
+@InspectWebTest
 public class SimpleControllerTest {
 
     @Autowired
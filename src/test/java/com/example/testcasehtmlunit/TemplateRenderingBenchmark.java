@@ -0,0 +1,75 @@
+package com.example.testcasehtmlunit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.web.util.HtmlUtils.htmlEscape;
+
+/**
+ * Compares rendering the page of {@link SimpleController} with {@code String.formatted} and with the {@link PreEncodedTemplate},
+ * both down to the bytes of the response. Measures time and allocated bytes per page.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+public class TemplateRenderingBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final String[] VALUES = {"6", "x1, x2", "example.txt", "Hello world!", "{\"a\":\"b\"}"};
+
+    // keeps the results alive, so the work can't be optimized away
+    private static long blackhole;
+
+    @Test
+    void render() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        measure("String.formatted", () -> {
+            byte[] bytes = SimpleController.HTML_TEMPLATE.formatted((Object[]) escaped()).getBytes(StandardCharsets.UTF_8);
+            out.reset();
+            out.write(bytes);
+            blackhole += out.size();
+        });
+        measure("PreEncodedTemplate", () -> {
+            out.reset();
+            SimpleController.TEMPLATE.writeTo(out, PreEncodedTemplate.encode(escaped()));
+            blackhole += out.size();
+        });
+        System.out.println("(" + blackhole + ")");
+    }
+
+    private static String[] escaped() {
+        String[] escaped = new String[VALUES.length];
+        for (int i = 0; i < VALUES.length; i++) {
+            escaped[i] = htmlEscape(VALUES[i]);
+        }
+        return escaped;
+    }
+
+    static void measure(String name, Operation operation) throws Exception {
+        measure(name, WARMUP_ITERATIONS, ITERATIONS, operation);
+    }
+
+    static void measure(String name, int warmupIterations, int iterations, Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - begin;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        System.out.printf("%-20s %,8d ns/op %,10d bytes/op%n", name, elapsed / iterations, allocated / iterations);
+    }
+
+    interface Operation {
+        void run() throws Exception;
+    }
+}